@@ -0,0 +1,52 @@
+package com.racingdrama;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test that fails if drawing a steady-state frame allocates.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderAllocationTest {
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+    
+    @Test
+    public void steadyStateFrames_doNotAllocate() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final GameView[] views = new GameView[1];
+        
+        // Views must be created on the main thread
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                views[0] = new GameView(context, SCREEN_WIDTH, SCREEN_HEIGHT);
+            }
+        });
+        GameView gameView = views[0];
+        assertTrue(gameView.awaitLoaded(10000));
+        
+        Bitmap bitmap = Bitmap.createBitmap(SCREEN_WIDTH, SCREEN_HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        GameSnapshot snapshot = new GameSnapshot();
+        
+        // Strict mode throws at the first allocating frame after warm-up
+        FrameAllocationCheck allocationCheck = gameView.getFrameAllocationCheck();
+        allocationCheck.setStrict(true);
+        allocationCheck.setEnabled(true);
+        
+        for (int frame = 0; frame < 600; frame++) {
+            gameView.stepAndDrawForTest(canvas, snapshot);
+        }
+        
+        assertEquals(0, allocationCheck.getAllocatingFrames());
+        allocationCheck.setEnabled(false);
+    }
+}
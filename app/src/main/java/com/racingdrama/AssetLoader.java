@@ -0,0 +1,98 @@
+package com.racingdrama;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent asset loading tasks in parallel on a small pool of
+ * background threads, then a final task once they have all finished.
+ *
+ * Everything the tasks wrote is visible to the final task and to whoever
+ * sees {@link Listener#onLoaded()}: completion is counted through an
+ * atomic counter and the last task to finish runs the final task itself.
+ */
+public class AssetLoader {
+    private static final String TAG = "AssetLoader";
+    
+    /**
+     * Receives loading progress. Called on the loader's threads.
+     */
+    public interface Listener {
+        /**
+         * A task finished
+         * @param completed Tasks finished so far
+         * @param total Tasks in the load
+         */
+        void onProgress(int completed, int total);
+        
+        /**
+         * Every task and the final task have finished
+         */
+        void onLoaded();
+    }
+    
+    // Loader threads, capped so rasterizing doesn't starve the UI thread
+    private static final int MAX_THREADS = 4;
+    
+    private final ExecutorService executor;
+    private final AtomicInteger completed = new AtomicInteger();
+    
+    public AssetLoader() {
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "AssetLoader-" + threadCount.incrementAndGet());
+            }
+        });
+    }
+    
+    /**
+     * Starts loading. May only be called once per loader.
+     * @param tasks Independent tasks, run in parallel and in any order; at least one
+     * @param finish Run once after every task, e.g. to combine their results
+     * @param listener Progress listener
+     */
+    public void load(final Runnable[] tasks, final Runnable finish, final Listener listener) {
+        for (final Runnable task : tasks) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // A failed task leaves its asset to the final task's fallbacks
+                        Log.e(TAG, "Asset task failed: " + e.getMessage());
+                    }
+                    
+                    int done = completed.incrementAndGet();
+                    listener.onProgress(done, tasks.length);
+                    if (done == tasks.length) {
+                        finish.run();
+                        listener.onLoaded();
+                        executor.shutdown();
+                    }
+                }
+            });
+        }
+    }
+    
+    /**
+     * Stops the loader threads; tasks not yet started are dropped
+     */
+    public void cancel() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,195 @@
+package com.racingdrama;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Picks the pixel format for each game bitmap and keeps their total size
+ * within a memory budget.
+ *
+ * Opaque assets are stored as RGB_565 (half the memory of ARGB_8888),
+ * assets that need alpha stay ARGB_8888, and static sprites that are only
+ * ever drawn can be moved to HARDWARE bitmaps on API 26+, which live in
+ * graphics memory instead of the app heap.
+ *
+ * Hardware bitmaps can only be drawn by a hardware-accelerated canvas, so
+ * whoever draws them must switch them back with {@link #toSoftware(Bitmap)}
+ * before drawing through a software canvas.
+ */
+public class AssetPolicy {
+    private static final String TAG = "AssetPolicy";
+    
+    // Share of the app's heap class the game assets may use
+    private static final int BUDGET_DIVISOR = 4;
+    private static final int LOW_RAM_BUDGET_DIVISOR = 8;
+    
+    // Maximum bytes of tracked bitmaps
+    private final long budgetBytes;
+    
+    // Whether static sprites may become HARDWARE bitmaps
+    private final boolean hardwareBitmaps;
+    
+    // Bytes currently held by tracked bitmaps
+    private long usedBytes;
+    
+    /**
+     * Constructor
+     * @param budgetBytes Maximum bytes of bitmaps created or tracked through this policy
+     * @param hardwareBitmaps true to allow HARDWARE bitmaps for static sprites (ignored below API 26)
+     */
+    public AssetPolicy(long budgetBytes, boolean hardwareBitmaps) {
+        this.budgetBytes = budgetBytes;
+        this.hardwareBitmaps = hardwareBitmaps && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+    }
+    
+    /**
+     * Creates a policy sized for the device: a share of the app's heap
+     * class, and a smaller one on low-RAM devices
+     * @param context Context for the activity manager
+     * @return Policy with hardware bitmaps allowed where supported
+     */
+    public static AssetPolicy forDevice(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager.isLowRamDevice();
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return new AssetPolicy(heapBytes / (lowRam ? LOW_RAM_BUDGET_DIVISOR : BUDGET_DIVISOR), true);
+    }
+    
+    /**
+     * Get the pixel format for an asset
+     * @param opaque true if every pixel is fully opaque
+     * @return RGB_565 for opaque assets, ARGB_8888 otherwise
+     */
+    public Bitmap.Config configFor(boolean opaque) {
+        return opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+    
+    /**
+     * Creates a mutable bitmap in the asset's format, counted against the budget
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param opaque true if every pixel will be fully opaque
+     * @return New bitmap
+     * @throws IllegalStateException if the bitmap would not fit in the budget
+     */
+    public Bitmap createBitmap(int width, int height, boolean opaque) {
+        Bitmap.Config config = configFor(opaque);
+        reserve((long) width * height * (opaque ? 2 : 4));
+        return Bitmap.createBitmap(width, height, config);
+    }
+    
+    /**
+     * Counts a bitmap created elsewhere (decoded, copied or packed) against the budget
+     * @param bitmap Bitmap to track
+     * @return The same bitmap
+     * @throws IllegalStateException if the bitmap does not fit in the budget
+     */
+    public Bitmap track(Bitmap bitmap) {
+        reserve(bitmap.getAllocationByteCount());
+        return bitmap;
+    }
+    
+    /**
+     * Counts a placeholder bitmap without enforcing the budget, so a failed
+     * load always leaves something to draw
+     * @param bitmap Placeholder to track
+     * @return The same bitmap
+     */
+    public synchronized Bitmap trackFallback(Bitmap bitmap) {
+        usedBytes += bitmap.getAllocationByteCount();
+        return bitmap;
+    }
+    
+    /**
+     * Recycles a tracked bitmap and returns its bytes to the budget
+     * @param bitmap Bitmap created or tracked through this policy, may be null
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        untrack(bitmap);
+        bitmap.recycle();
+    }
+    
+    /**
+     * Returns a tracked bitmap's bytes to the budget without recycling it,
+     * for bitmaps another thread may still be reading. The memory is freed
+     * once the bitmap is no longer referenced.
+     * @param bitmap Bitmap created or tracked through this policy, may be null
+     */
+    public synchronized void untrack(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        usedBytes = Math.max(0, usedBytes - bitmap.getAllocationByteCount());
+    }
+    
+    /**
+     * Moves a static sprite to a HARDWARE bitmap when allowed. The source
+     * is released, so use the returned bitmap from now on.
+     * @param bitmap Tracked bitmap that will only be drawn from now on
+     * @return Hardware copy, or the same bitmap if hardware bitmaps aren't used
+     */
+    public Bitmap toStatic(Bitmap bitmap) {
+        if (!hardwareBitmaps || bitmap.getConfig() == Bitmap.Config.HARDWARE) {
+            return bitmap;
+        }
+        
+        Bitmap hardware = bitmap.copy(Bitmap.Config.HARDWARE, false);
+        if (hardware == null) {
+            // The device couldn't upload it; keep drawing the software one
+            return bitmap;
+        }
+        
+        release(bitmap);
+        return track(hardware);
+    }
+    
+    /**
+     * Copies a HARDWARE bitmap back into the heap so a software canvas can draw it.
+     * The hardware bitmap is released.
+     * @param bitmap Tracked bitmap
+     * @return Software copy, or the same bitmap if it wasn't a hardware bitmap
+     */
+    public Bitmap toSoftware(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || bitmap.getConfig() != Bitmap.Config.HARDWARE) {
+            return bitmap;
+        }
+        
+        Bitmap software = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        release(bitmap);
+        return track(software);
+    }
+    
+    /**
+     * Check whether static sprites are moved to HARDWARE bitmaps
+     * @return true on API 26+ when allowed
+     */
+    public boolean usesHardwareBitmaps() {
+        return hardwareBitmaps;
+    }
+    
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+    
+    /**
+     * Get the bytes held by tracked bitmaps
+     * @return Bytes in use
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    private synchronized void reserve(long bytes) {
+        if (usedBytes + bytes > budgetBytes) {
+            Log.e(TAG, "Asset budget exceeded: " + (usedBytes + bytes) + " of " + budgetBytes + " bytes");
+            throw new IllegalStateException("Asset memory budget exceeded");
+        }
+        usedBytes += bytes;
+    }
+}
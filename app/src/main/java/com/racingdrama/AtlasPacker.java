@@ -0,0 +1,145 @@
+package com.racingdrama;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Packs rectangles onto fixed-size pages with a shelf packer: tallest
+ * first, left to right along rows ("shelves"), opening a new shelf when a
+ * row is full and a new page when a page is full. Pure Java, so the
+ * layout can be tested without Android.
+ */
+public class AtlasPacker {
+    // Page dimensions
+    private final int pageWidth;
+    private final int pageHeight;
+    
+    // Empty pixels around each rectangle so filtered sampling doesn't bleed into neighbours
+    private final int padding;
+    
+    // Packing results, one entry per rectangle
+    private int[] pages = new int[0];
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    
+    // Extent used on each page
+    private int pageCount;
+    private int[] usedWidths = new int[0];
+    private int[] usedHeights = new int[0];
+    
+    /**
+     * Constructor
+     * @param pageWidth Page width in pixels
+     * @param pageHeight Page height in pixels
+     * @param padding Gap kept around each rectangle in pixels
+     */
+    public AtlasPacker(int pageWidth, int pageHeight, int padding) {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.padding = padding;
+    }
+    
+    /**
+     * Lays out rectangles, replacing any previous result. Rectangles that
+     * can't fit on a page at all are left unplaced.
+     * @param widths Rectangle widths
+     * @param heights Rectangle heights
+     * @return Number of pages used
+     */
+    public int pack(final int[] widths, final int[] heights) {
+        int count = widths.length;
+        pages = new int[count];
+        xs = new int[count];
+        ys = new int[count];
+        usedWidths = new int[count];
+        usedHeights = new int[count];
+        pageCount = 0;
+        
+        // Tallest first keeps shelves tightly filled
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Integer.compare(heights[b], heights[a]);
+            }
+        });
+        
+        int page = -1;
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        
+        for (int index : order) {
+            int width = widths[index] + padding * 2;
+            int height = heights[index] + padding * 2;
+            
+            if (width > pageWidth || height > pageHeight) {
+                pages[index] = -1;
+                continue;
+            }
+            
+            // Start a new shelf when this row is full
+            if (page >= 0 && shelfX + width > pageWidth) {
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            
+            // Start a new page when the shelf doesn't fit below the last one
+            if (page < 0 || shelfY + height > pageHeight) {
+                page = pageCount++;
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+            
+            pages[index] = page;
+            xs[index] = shelfX + padding;
+            ys[index] = shelfY + padding;
+            
+            shelfX += width;
+            shelfHeight = Math.max(shelfHeight, height);
+            usedWidths[page] = Math.max(usedWidths[page], shelfX);
+            usedHeights[page] = Math.max(usedHeights[page], shelfY + shelfHeight);
+        }
+        
+        return pageCount;
+    }
+    
+    /**
+     * Get the page a rectangle was placed on
+     * @param index Rectangle index
+     * @return Page index, or -1 if it was too big for a page
+     */
+    public int getPage(int index) {
+        return pages[index];
+    }
+    
+    public int getX(int index) {
+        return xs[index];
+    }
+    
+    public int getY(int index) {
+        return ys[index];
+    }
+    
+    public int getPageCount() {
+        return pageCount;
+    }
+    
+    /**
+     * Get the width actually used on a page, so the last page can be smaller
+     * @param page Page index
+     * @return Used width in pixels
+     */
+    public int getUsedWidth(int page) {
+        return usedWidths[page];
+    }
+    
+    public int getUsedHeight(int page) {
+        return usedHeights[page];
+    }
+}
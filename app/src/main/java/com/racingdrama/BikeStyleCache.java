@@ -0,0 +1,265 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Recolored copies of the bike images, one set per style, computed on a
+ * background thread and kept under a memory bound with least-recently-used
+ * eviction.
+ *
+ * The pinned style (the one on screen) is never evicted. Evicted sets are
+ * only dropped from the budget, never recycled or reused, since the
+ * renderer's rotation builder may still be reading them; the garbage
+ * collector frees them once nothing holds them. The classic style is the
+ * base images themselves and costs nothing.
+ */
+public class BikeStyleCache {
+    private static final String TAG = "BikeStyleCache";
+    
+    /**
+     * Receives a computed style. Called on the cache's thread.
+     */
+    public interface Listener {
+        /**
+         * A style's images are ready
+         * @param style Requested style
+         * @param images Styled images, indexed like the base images; never modified afterwards
+         */
+        void onStyleReady(String style, Bitmap[] images);
+    }
+    
+    // Color modifications for sport style
+    private static final float[] SPORT_COLOR_MATRIX = {
+        1.1f, 0, 0, 0, 10,    // Red
+        0, 0.9f, 0, 0, -10,   // Green
+        0, 0, 1.2f, 0, 40,    // Blue
+        0, 0, 0, 1, 0         // Alpha
+    };
+    
+    // Color modifications for retro style
+    private static final float[] RETRO_COLOR_MATRIX = {
+        1.2f, 0.2f, 0.2f, 0, 20,  // Red
+        0.2f, 0.9f, 0.1f, 0, 10,  // Green
+        0.1f, 0.1f, 0.6f, 0, 0,   // Blue
+        0, 0, 0, 1, 0              // Alpha
+    };
+    
+    // Unstyled images every variant is drawn from
+    private final Bitmap[] baseImages;
+    private final AssetPolicy assetPolicy;
+    
+    // Computed styles, least recently used first, and the bytes they hold
+    private final LinkedHashMap<String, Bitmap[]> variants = new LinkedHashMap<>(4, 0.75f, true);
+    private final long maxBytes;
+    private long cachedBytes;
+    private String pinnedStyle;
+    
+    // Reused for every recolor
+    private final Paint stylePaint = new Paint();
+    
+    private final ExecutorService executor;
+    
+    /**
+     * Constructor
+     * @param baseImages Unstyled bike images; read only
+     * @param assetPolicy Asset policy styled images are created through
+     * @param maxBytes Bytes of styled images to keep, not counting the pinned style
+     */
+    public BikeStyleCache(Bitmap[] baseImages, AssetPolicy assetPolicy, long maxBytes) {
+        this.baseImages = baseImages;
+        this.assetPolicy = assetPolicy;
+        this.maxBytes = maxBytes;
+        
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, TAG);
+            }
+        });
+    }
+    
+    /**
+     * Get a style's images, computing them on the calling thread on a miss
+     * @param style One of the BikeStyleManager.STYLE_ constants
+     * @return Styled images
+     */
+    public synchronized Bitmap[] get(String style) {
+        Bitmap[] images = variants.get(style);
+        if (images == null) {
+            images = createVariant(style);
+            variants.put(style, images);
+            cachedBytes += byteCount(images);
+            trim();
+        }
+        return images;
+    }
+    
+    /**
+     * Gets a style's images on the cache's thread
+     * @param style One of the BikeStyleManager.STYLE_ constants
+     * @param listener Receives the images
+     */
+    public void request(final String style, final Listener listener) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onStyleReady(style, get(style));
+            }
+        });
+    }
+    
+    /**
+     * Computes a style in the background if it fits without evicting anything,
+     * so switching to it later is instant
+     * @param style One of the BikeStyleManager.STYLE_ constants
+     */
+    public void prefetch(final String style) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (BikeStyleCache.this) {
+                    if (!variants.containsKey(style) && cachedBytes + variantBytes(style) <= maxBytes) {
+                        get(style);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Keeps a style from being evicted, for the style on screen. Unpins the previous one.
+     * @param style Style to pin
+     */
+    public synchronized void pin(String style) {
+        pinnedStyle = style;
+        trim();
+    }
+    
+    /**
+     * Stops the cache's thread and returns every styled image to the budget.
+     * The images aren't recycled since the renderer may still hold them.
+     */
+    public synchronized void shutdown() {
+        executor.shutdownNow();
+        
+        for (Bitmap[] images : variants.values()) {
+            if (images != baseImages) {
+                for (Bitmap image : images) {
+                    assetPolicy.untrack(image);
+                }
+            }
+        }
+        variants.clear();
+        cachedBytes = 0;
+    }
+    
+    // Evicts least recently used styles until the unpinned ones fit. The most recently
+    // used style is kept too, so a requested style survives until its listener pins it.
+    private void trim() {
+        long pinnedBytes = 0;
+        for (Map.Entry<String, Bitmap[]> entry : variants.entrySet()) {
+            if (entry.getKey().equals(pinnedStyle)) {
+                pinnedBytes = byteCount(entry.getValue());
+            }
+        }
+        
+        int evictable = variants.size() - 1;
+        Iterator<Map.Entry<String, Bitmap[]>> iterator = variants.entrySet().iterator();
+        while (cachedBytes - pinnedBytes > maxBytes && evictable-- > 0) {
+            Map.Entry<String, Bitmap[]> entry = iterator.next();
+            if (entry.getKey().equals(pinnedStyle)) {
+                continue;
+            }
+            
+            iterator.remove();
+            Bitmap[] images = entry.getValue();
+            cachedBytes -= byteCount(images);
+            if (images != baseImages) {
+                for (Bitmap image : images) {
+                    assetPolicy.untrack(image);
+                }
+            }
+        }
+    }
+    
+    private Bitmap[] createVariant(String style) {
+        ColorMatrixColorFilter filter = filterFor(style);
+        if (filter == null) {
+            // Classic is the original art
+            return baseImages;
+        }
+        
+        stylePaint.setColorFilter(filter);
+        Bitmap[] images = new Bitmap[baseImages.length];
+        try {
+            for (int i = 0; i < baseImages.length; i++) {
+                Bitmap source = baseImages[i];
+                images[i] = assetPolicy.createBitmap(source.getWidth(), source.getHeight(), false);
+                new Canvas(images[i]).drawBitmap(source, 0, 0, stylePaint);
+            }
+            return images;
+        } catch (IllegalStateException e) {
+            // Over the asset budget: show the unstyled bike rather than nothing
+            Log.e(TAG, "Couldn't create " + style + " style: " + e.getMessage());
+            for (Bitmap image : images) {
+                if (image != null) {
+                    assetPolicy.untrack(image);
+                }
+            }
+            return baseImages;
+        }
+    }
+    
+    private static ColorMatrixColorFilter filterFor(String style) {
+        if (BikeStyleManager.STYLE_SPORT.equals(style)) {
+            return new ColorMatrixColorFilter(new ColorMatrix(SPORT_COLOR_MATRIX));
+        } else if (BikeStyleManager.STYLE_RETRO.equals(style)) {
+            return new ColorMatrixColorFilter(new ColorMatrix(RETRO_COLOR_MATRIX));
+        }
+        return null;
+    }
+    
+    // Bytes a style would add once computed
+    private long variantBytes(String style) {
+        if (filterFor(style) == null) {
+            return 0;
+        }
+        
+        long bytes = 0;
+        for (Bitmap image : baseImages) {
+            bytes += (long) image.getWidth() * image.getHeight() * 4;
+        }
+        return bytes;
+    }
+    
+    private long byteCount(Bitmap[] images) {
+        if (images == baseImages) {
+            return 0;
+        }
+        
+        long bytes = 0;
+        for (Bitmap image : images) {
+            bytes += image.getAllocationByteCount();
+        }
+        return bytes;
+    }
+}
@@ -6,8 +6,6 @@ import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.drawable.Drawable;
@@ -15,9 +13,16 @@ import android.util.Log;
 import androidx.core.content.ContextCompat;
 import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
+import com.racingdrama.engine.Player;
+
 /**
  * Manages different bike styles and provides methods to load bike images
  * based on the selected style from settings.
+ *
+ * Listens for style changes instead of reading the settings on every
+ * resume. A new style is computed in the background by a
+ * {@link BikeStyleCache}; once it is ready {@link #getStyleVersion()}
+ * changes and the renderer picks up {@link #getBikeImages()} between frames.
  */
 public class BikeStyleManager {
     
@@ -33,13 +38,37 @@ public class BikeStyleManager {
     // Context for loading resources
     private final Context context;
     
-    // Current style
-    private String currentStyle;
+    // Chooses bitmap formats and counts bike images against the asset budget
+    private final AssetPolicy assetPolicy;
+    
+    // Base images rasterized on earlier starts
+    private final RasterCache rasterCache;
+    
+    // Share of the asset budget kept for styles other than the one on screen
+    private static final int STYLE_CACHE_BUDGET_DIVISOR = 8;
+    
+    // Style on screen and its images, indexed by Player.BIKE_ state, replaced together
+    private volatile String currentStyle;
+    private volatile Bitmap[] bikeImages;
+    private volatile int styleVersion;
     
-    // Bike images
-    private Bitmap bikeNormalImg;
-    private Bitmap bikeWheelieImg;
-    private Bitmap bikeJumpImg;
+    // Latest style the settings asked for, which may still be computing
+    private String requestedStyle;
+    
+    // Styled images for every style, computed in the background
+    private BikeStyleCache styleCache;
+    
+    // Kept in a field since SharedPreferences only holds listeners weakly
+    private SharedPreferences settings;
+    private final SharedPreferences.OnSharedPreferenceChangeListener settingsListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+            if (PREF_BIKE_STYLE.equals(key)) {
+                selectStyle(preferences.getString(PREF_BIKE_STYLE, STYLE_CLASSIC));
+            }
+        }
+    };
     
     // Base bike vector drawables (unmodified)
     private VectorDrawableCompat baseBikeNormalVector;
@@ -51,44 +80,52 @@ public class BikeStyleManager {
     private Bitmap baseBikeWheelie;
     private Bitmap baseBikeJump;
     
-    // Color modifications for sport style
-    private static final float[] SPORT_COLOR_MATRIX = {
-        1.1f, 0, 0, 0, 10,    // Red
-        0, 0.9f, 0, 0, -10,   // Green
-        0, 0, 1.2f, 0, 40,    // Blue
-        0, 0, 0, 1, 0         // Alpha
-    };
-    
-    // Color modifications for retro style
-    private static final float[] RETRO_COLOR_MATRIX = {
-        1.2f, 0.2f, 0.2f, 0, 20,  // Red
-        0.2f, 0.9f, 0.1f, 0, 10,  // Green
-        0.1f, 0.1f, 0.6f, 0, 0,   // Blue
-        0, 0, 0, 1, 0              // Alpha
-    };
-    
     /**
      * Constructor
      * @param context Application context
+     * @param assetPolicy Asset policy the bike images are created through
+     * @param rasterCache Disk cache for the rasterized base images
      */
-    public BikeStyleManager(Context context) {
+    public BikeStyleManager(Context context, AssetPolicy assetPolicy, RasterCache rasterCache) {
         this.context = context;
+        this.assetPolicy = assetPolicy;
+        this.rasterCache = rasterCache;
         
         // Load the base images
         loadBaseImages();
         
-        // Load the current style from preferences
-        SharedPreferences settings = context.getSharedPreferences(PREFS_NAME, 0);
-        this.currentStyle = settings.getString(PREF_BIKE_STYLE, STYLE_CLASSIC);
+        // Indexed by Player.BIKE_ state
+        Bitmap[] baseImages = new Bitmap[3];
+        baseImages[Player.BIKE_NORMAL] = baseBikeNormal;
+        baseImages[Player.BIKE_WHEELIE] = baseBikeWheelie;
+        baseImages[Player.BIKE_JUMP] = baseBikeJump;
+        styleCache = new BikeStyleCache(baseImages, assetPolicy, assetPolicy.getBudgetBytes() / STYLE_CACHE_BUDGET_DIVISOR);
+        
+        // Load the current style from preferences, once; later changes arrive through the listener
+        settings = context.getSharedPreferences(PREFS_NAME, 0);
+        currentStyle = settings.getString(PREF_BIKE_STYLE, STYLE_CLASSIC);
+        requestedStyle = currentStyle;
+        bikeImages = styleCache.get(currentStyle);
+        styleCache.pin(currentStyle);
+        settings.registerOnSharedPreferenceChangeListener(settingsListener);
         
-        // Apply style to bike images
-        applyStyleToBikeImages();
+        // Have the other styles ready before they are picked, if they fit
+        for (String style : new String[] {STYLE_CLASSIC, STYLE_SPORT, STYLE_RETRO}) {
+            if (!style.equals(currentStyle)) {
+                styleCache.prefetch(style);
+            }
+        }
     }
     
     /**
      * Loads the base bike images from vector drawable resources
      */
     private void loadBaseImages() {
+        // Skip the vectors entirely if all three were rasterized before or at build time
+        if (loadCachedBaseImages()) {
+            return;
+        }
+        
         try {
             // Load vector drawables with proper error handling
             int bikeNormalId = context.getResources().getIdentifier("bike_normal", "drawable", context.getPackageName());
@@ -129,6 +166,11 @@ public class BikeStyleManager {
             // Ensure we have valid bitmaps
             if (baseBikeNormal == null || baseBikeWheelie == null || baseBikeJump == null) {
                 createFallbackBitmaps();
+            } else if (baseBikeNormalVector != null && baseBikeWheelieVector != baseBikeNormalVector) {
+                // Real bike vectors, not the fallback icon: keep them for the next start
+                rasterCache.put("bike_normal", RasterCache.NO_STYLE, baseBikeNormal);
+                rasterCache.put("bike_wheelie", RasterCache.NO_STYLE, baseBikeWheelie);
+                rasterCache.put("bike_jump", RasterCache.NO_STYLE, baseBikeJump);
             }
         } catch (Exception e) {
             Log.e("BikeStyleManager", "Error in loadBaseImages: " + e.getMessage());
@@ -137,6 +179,27 @@ public class BikeStyleManager {
         }
     }
     
+    /**
+     * Loads the base images from the raster cache or the pre-rasterized assets
+     * @return true if all three were found
+     */
+    private boolean loadCachedBaseImages() {
+        Bitmap normal = rasterCache.getBase("bike_normal", assetPolicy);
+        Bitmap wheelie = rasterCache.getBase("bike_wheelie", assetPolicy);
+        Bitmap jump = rasterCache.getBase("bike_jump", assetPolicy);
+        if (normal == null || wheelie == null || jump == null) {
+            assetPolicy.release(normal);
+            assetPolicy.release(wheelie);
+            assetPolicy.release(jump);
+            return false;
+        }
+        
+        baseBikeNormal = normal;
+        baseBikeWheelie = wheelie;
+        baseBikeJump = jump;
+        return true;
+    }
+    
     /**
      * Converts a vector drawable to bitmap
      * @param vectorDrawable The vector drawable to convert
@@ -152,7 +215,8 @@ public class BikeStyleManager {
             int width = Math.max(vectorDrawable.getIntrinsicWidth(), 100);
             int height = Math.max(vectorDrawable.getIntrinsicHeight(), 60);
             
-            Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            // The bike has transparent surroundings, so it keeps an alpha channel
+            Bitmap bitmap = assetPolicy.createBitmap(width, height, false);
             Canvas canvas = new Canvas(bitmap);
             vectorDrawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
             vectorDrawable.draw(canvas);
@@ -165,91 +229,55 @@ public class BikeStyleManager {
     }
     
     /**
-     * Applies the current style to the bike images
+     * Switches to a style once its images are ready, without blocking the caller
+     * @param style One of the STYLE_ constants
      */
-    private void applyStyleToBikeImages() {
-        try {
-            // Check if base bitmaps exist, create fallbacks if needed
-            if (baseBikeNormal == null || baseBikeWheelie == null || baseBikeJump == null) {
-                createFallbackBitmaps();
-            }
-            
-            // Apply style modifications with proper error handling
-            if (STYLE_CLASSIC.equals(currentStyle)) {
-                // Use the original images for classic style
-                try {
-                    bikeNormalImg = baseBikeNormal.copy(Bitmap.Config.ARGB_8888, true);
-                    bikeWheelieImg = baseBikeWheelie.copy(Bitmap.Config.ARGB_8888, true);
-                    bikeJumpImg = baseBikeJump.copy(Bitmap.Config.ARGB_8888, true);
-                } catch (Exception e) {
-                    Log.e("BikeStyleManager", "Error copying bitmaps: " + e.getMessage());
-                    createFallbackBitmaps();
+    private synchronized void selectStyle(String style) {
+        if (style.equals(requestedStyle)) {
+            return;
+        }
+        requestedStyle = style;
+        
+        styleCache.request(style, new BikeStyleCache.Listener() {
+            @Override
+            public void onStyleReady(String readyStyle, Bitmap[] images) {
+                synchronized (BikeStyleManager.this) {
+                    // A later pick supersedes this one
+                    if (!readyStyle.equals(requestedStyle)) {
+                        return;
+                    }
+                    
+                    styleCache.pin(readyStyle);
+                    bikeImages = images;
+                    currentStyle = readyStyle;
+                    styleVersion++;
                 }
-            } else if (STYLE_SPORT.equals(currentStyle)) {
-                // Apply Sport style colors
-                Paint sportPaint = new Paint();
-                ColorMatrix sportColorMatrix = new ColorMatrix(SPORT_COLOR_MATRIX);
-                sportPaint.setColorFilter(new ColorMatrixColorFilter(sportColorMatrix));
-                
-                bikeNormalImg = applyColorFilter(baseBikeNormal, sportPaint);
-                bikeWheelieImg = applyColorFilter(baseBikeWheelie, sportPaint);
-                bikeJumpImg = applyColorFilter(baseBikeJump, sportPaint);
-            } else if (STYLE_RETRO.equals(currentStyle)) {
-                // Apply Retro style colors
-                Paint retroPaint = new Paint();
-                ColorMatrix retroColorMatrix = new ColorMatrix(RETRO_COLOR_MATRIX);
-                retroPaint.setColorFilter(new ColorMatrixColorFilter(retroColorMatrix));
-                
-                bikeNormalImg = applyColorFilter(baseBikeNormal, retroPaint);
-                bikeWheelieImg = applyColorFilter(baseBikeWheelie, retroPaint);
-                bikeJumpImg = applyColorFilter(baseBikeJump, retroPaint);
             }
-            
-            // Final check to ensure we have valid bitmaps
-            if (bikeNormalImg == null || bikeWheelieImg == null || bikeJumpImg == null) {
-                createFallbackBitmaps();
-            }
-        } catch (Exception e) {
-            Log.e("BikeStyleManager", "Error in applyStyleToBikeImages: " + e.getMessage());
-            // If anything goes wrong, create simple fallback bitmaps
-            createFallbackBitmaps();
-        }
+        });
     }
     
     /**
-     * Apply color filter to a bitmap
-     * @param source Source bitmap
-     * @param paint Paint with color filter
-     * @return Filtered bitmap
+     * Stops listening for style changes and drops the style cache. Call when the game view goes away.
      */
-    private Bitmap applyColorFilter(Bitmap source, Paint paint) {
-        if (source == null) {
-            return createSimpleBitmap(100, 60, Color.RED); // Return a simple colored bitmap as fallback
-        }
-        
-        try {
-            Bitmap result = Bitmap.createBitmap(source.getWidth(), source.getHeight(), Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(result);
-            canvas.drawBitmap(source, 0, 0, paint);
-            return result;
-        } catch (Exception e) {
-            Log.e("BikeStyleManager", "Error in applyColorFilter: " + e.getMessage());
-            // If anything goes wrong, return a simple colored bitmap
-            return createSimpleBitmap(100, 60, Color.RED);
-        }
+    public void release() {
+        settings.unregisterOnSharedPreferenceChangeListener(settingsListener);
+        styleCache.shutdown();
     }
     
     /**
-     * Reload bike images if the style has changed
+     * Get a counter that changes whenever the bike images do
+     * @return Style version
      */
-    public void reloadIfStyleChanged() {
-        SharedPreferences settings = context.getSharedPreferences(PREFS_NAME, 0);
-        String savedStyle = settings.getString(PREF_BIKE_STYLE, STYLE_CLASSIC);
-        
-        if (!currentStyle.equals(savedStyle)) {
-            currentStyle = savedStyle;
-            applyStyleToBikeImages();
-        }
+    public int getStyleVersion() {
+        return styleVersion;
+    }
+    
+    /**
+     * Get the current style's bike images
+     * @return Images indexed by Player.BIKE_ state; not modified afterwards
+     */
+    public Bitmap[] getBikeImages() {
+        return bikeImages;
     }
     
     /**
@@ -257,7 +285,7 @@ public class BikeStyleManager {
      * @return Normal bike bitmap
      */
     public Bitmap getBikeNormalImg() {
-        return bikeNormalImg;
+        return bikeImages[Player.BIKE_NORMAL];
     }
     
     /**
@@ -265,7 +293,7 @@ public class BikeStyleManager {
      * @return Wheelie bike bitmap
      */
     public Bitmap getBikeWheelieImg() {
-        return bikeWheelieImg;
+        return bikeImages[Player.BIKE_WHEELIE];
     }
     
     /**
@@ -273,7 +301,7 @@ public class BikeStyleManager {
      * @return Jump bike bitmap
      */
     public Bitmap getBikeJumpImg() {
-        return bikeJumpImg;
+        return bikeImages[Player.BIKE_JUMP];
     }
     
     /**
@@ -315,11 +343,6 @@ public class BikeStyleManager {
         baseBikeNormal = createSimpleBitmap(100, 60, Color.BLUE);
         baseBikeWheelie = createSimpleBitmap(100, 60, Color.GREEN);
         baseBikeJump = createSimpleBitmap(100, 60, Color.RED);
-        
-        // Set the styled images to the same fallbacks
-        bikeNormalImg = baseBikeNormal;
-        bikeWheelieImg = baseBikeWheelie;
-        bikeJumpImg = baseBikeJump;
     }
     
     /**
@@ -330,7 +353,7 @@ public class BikeStyleManager {
      * @return A simple colored bitmap
      */
     private Bitmap createSimpleBitmap(int width, int height, int color) {
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = assetPolicy.trackFallback(Bitmap.createBitmap(width, height, assetPolicy.configFor(false)));
         Canvas canvas = new Canvas(bitmap);
         Paint paint = new Paint();
         paint.setColor(color);
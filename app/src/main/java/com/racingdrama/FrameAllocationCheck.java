@@ -0,0 +1,120 @@
+package com.racingdrama;
+
+import android.os.Debug;
+import android.util.Log;
+
+/**
+ * Counts the objects the render thread allocates while drawing each
+ * frame. Once the game has warmed up a frame should allocate nothing, so
+ * any allocating frame is counted and logged, or throws in strict mode.
+ *
+ * Off by default: allocation counting slows the runtime down, so it is
+ * meant for instrumentation tests and profiling sessions.
+ */
+public class FrameAllocationCheck {
+    private static final String TAG = "FrameAllocationCheck";
+    
+    // Frames ignored after enabling while lazily built objects settle
+    private static final int DEFAULT_WARMUP_FRAMES = 60;
+    
+    private volatile boolean enabled;
+    private volatile boolean strict;
+    private int warmupFrames = DEFAULT_WARMUP_FRAMES;
+    
+    // Counting state, only touched by the drawing thread
+    private boolean counting;
+    private int framesSeen;
+    private int frameStartCount;
+    
+    // Results
+    private volatile long allocatingFrames;
+    private volatile int lastFrameAllocations;
+    
+    /**
+     * Turn per-frame allocation counting on or off
+     * @param enabled true to count allocations
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * In strict mode an allocating steady-state frame throws instead of
+     * being logged, so a test fails at the offending frame
+     * @param strict true to throw
+     */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+    
+    public void setWarmupFrames(int warmupFrames) {
+        this.warmupFrames = warmupFrames;
+    }
+    
+    /**
+     * Call on the drawing thread right before drawing a frame
+     */
+    @SuppressWarnings("deprecation")
+    public void beginFrame() {
+        if (!enabled) {
+            if (counting) {
+                Debug.stopAllocCounting();
+                counting = false;
+                framesSeen = 0;
+            }
+            return;
+        }
+        
+        if (!counting) {
+            Debug.startAllocCounting();
+            counting = true;
+        }
+        frameStartCount = Debug.getThreadAllocCount();
+    }
+    
+    /**
+     * Call on the drawing thread right after drawing a frame
+     * @throws IllegalStateException In strict mode, if a steady-state frame allocated
+     */
+    @SuppressWarnings("deprecation")
+    public void endFrame() {
+        if (!counting) {
+            return;
+        }
+        
+        int allocations = Debug.getThreadAllocCount() - frameStartCount;
+        if (framesSeen < warmupFrames) {
+            framesSeen++;
+            return;
+        }
+        
+        lastFrameAllocations = allocations;
+        if (allocations > 0) {
+            allocatingFrames++;
+            if (strict) {
+                throw new IllegalStateException("Frame allocated " + allocations + " objects");
+            }
+            Log.w(TAG, "Frame allocated " + allocations + " objects");
+        }
+    }
+    
+    /**
+     * Get the number of steady-state frames that allocated
+     * @return Allocating frame count since the check was enabled
+     */
+    public long getAllocatingFrames() {
+        return allocatingFrames;
+    }
+    
+    /**
+     * Get the number of objects the last measured frame allocated
+     * @return Allocation count
+     */
+    public int getLastFrameAllocations() {
+        return lastFrameAllocations;
+    }
+}
@@ -0,0 +1,305 @@
+package com.racingdrama;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+/**
+ * Paces the game threads. In vsync mode a Choreographer running on its own
+ * looper thread delivers display vsync timestamps and the game threads block
+ * until the next one arrives. In sleep mode the threads fall back to the old
+ * fixed sleep loop and never call {@link #awaitFrame(int)}.
+ */
+public class FrameScheduler implements Choreographer.FrameCallback {
+
+    // Pacing modes
+    public static final int MODE_VSYNC = 0;
+    public static final int MODE_SLEEP = 1;
+    
+    // Game threads that wait for vsyncs, each with its own missed vsync count
+    public static final int CONSUMER_SIMULATION = 0;
+    public static final int CONSUMER_RENDER = 1;
+    private static final int CONSUMER_COUNT = 2;
+    
+    private static final String TAG = "FrameScheduler";
+    
+    // Longest a thread waits for a vsync before giving up (screen off, looper stalled)
+    private static final long VSYNC_TIMEOUT_MILLIS = 100;
+    
+    // Weight of each new vsync interval in the refresh period estimate
+    private static final int INTERVAL_SMOOTHING = 16;
+    
+    private final Object frameLock = new Object();
+    
+    private int mode;
+    private volatile boolean running;
+    
+    // Vsync delivery suspended while the game is paused
+    private volatile boolean paused;
+    
+    // Choreographer looper thread (vsync mode only)
+    private HandlerThread vsyncThread;
+    private Handler vsyncHandler;
+    private Choreographer choreographer;
+    
+    // Latest vsync, guarded by frameLock; the count restarts from 0 on resume
+    private long frameCount;
+    private long lastFrameTimeNanos;
+    
+    // Per consumer, guarded by frameLock: the vsync it was last given (0 for none since resume)
+    // and the vsyncs that went by while it was busy
+    private final long[] lastFrameSeen = new long[CONSUMER_COUNT];
+    private final long[] missedVsyncCounts = new long[CONSUMER_COUNT];
+    
+    // Refresh rate tracking
+    private final float displayRefreshRate;
+    private volatile long frameIntervalNanos;
+    
+    /**
+     * Constructor
+     * @param context Context used to look up the display refresh rate
+     * @param mode MODE_VSYNC or MODE_SLEEP
+     */
+    public FrameScheduler(Context context, int mode) {
+        this.mode = mode;
+        this.displayRefreshRate = queryDisplayRefreshRate(context);
+        this.frameIntervalNanos = (long) (1000000000L / displayRefreshRate);
+    }
+    
+    // Context.getDisplay only exists from API 30; below that the WindowManager's display is the only way
+    @SuppressWarnings("deprecation")
+    private static float queryDisplayRefreshRate(Context context) {
+        try {
+            Display display;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                display = context.getDisplay();
+            } else {
+                WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+                display = windowManager.getDefaultDisplay();
+            }
+            float refreshRate = display.getRefreshRate();
+            if (refreshRate >= 30f) {
+                return refreshRate;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading display refresh rate: " + e.getMessage());
+        }
+        return 60f;
+    }
+    
+    /**
+     * Starts delivering vsync ticks. Falls back to sleep mode if the
+     * Choreographer thread can't be started.
+     */
+    public void start() {
+        running = true;
+        
+        if (mode != MODE_VSYNC) {
+            return;
+        }
+        
+        try {
+            vsyncThread = new HandlerThread("VsyncThread");
+            vsyncThread.start();
+            vsyncHandler = new Handler(vsyncThread.getLooper());
+            vsyncHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    choreographer = Choreographer.getInstance();
+                    choreographer.postFrameCallback(FrameScheduler.this);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error starting vsync thread, falling back to sleep pacing: " + e.getMessage());
+            mode = MODE_SLEEP;
+        }
+    }
+    
+    /**
+     * Stops vsync delivery and wakes any thread waiting in {@link #awaitFrame(int)}
+     */
+    public void stop() {
+        running = false;
+        
+        if (vsyncThread != null) {
+            vsyncHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (choreographer != null) {
+                        choreographer.removeFrameCallback(FrameScheduler.this);
+                    }
+                }
+            });
+            vsyncThread.quitSafely();
+            vsyncThread = null;
+        }
+        
+        synchronized (frameLock) {
+            frameLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Stops requesting vsync callbacks so the looper thread sleeps while the
+     * game is paused, and wakes any thread waiting in {@link #awaitFrame(int)}
+     */
+    public void pause() {
+        paused = true;
+        
+        synchronized (frameLock) {
+            frameLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Starts requesting vsync callbacks again after {@link #pause()}
+     */
+    public void resume() {
+        if (!paused) {
+            return;
+        }
+        
+        // Start counting afresh so the pause isn't measured as one long vsync interval
+        synchronized (frameLock) {
+            frameCount = 0;
+            for (int consumer = 0; consumer < CONSUMER_COUNT; consumer++) {
+                lastFrameSeen[consumer] = 0;
+            }
+        }
+        paused = false;
+        
+        if (vsyncThread != null) {
+            vsyncHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (choreographer != null) {
+                        // Remove first so a callback still pending from before the pause isn't doubled
+                        choreographer.removeFrameCallback(FrameScheduler.this);
+                        choreographer.postFrameCallback(FrameScheduler.this);
+                    }
+                }
+            });
+        }
+    }
+    
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running || paused) {
+            // Not reposted; resume() starts the callbacks again
+            return;
+        }
+        
+        synchronized (frameLock) {
+            if (frameCount > 0) {
+                refineInterval(frameTimeNanos - lastFrameTimeNanos);
+            }
+            frameCount++;
+            lastFrameTimeNanos = frameTimeNanos;
+            frameLock.notifyAll();
+        }
+        
+        choreographer.postFrameCallback(this);
+    }
+    
+    private void refineInterval(long delta) {
+        long interval = frameIntervalNanos;
+        
+        // Only on-time vsyncs say anything about the period
+        if (delta > interval / 2 && delta < interval + interval / 2) {
+            frameIntervalNanos = interval + (delta - interval) / INTERVAL_SMOOTHING;
+        }
+    }
+    
+    /**
+     * Blocks until the next vsync and returns its timestamp. Returns the
+     * current time instead if no vsync arrives in time or the scheduler stops.
+     * Any vsyncs since the one the caller was last given are counted as
+     * missed by that caller, since its previous frame ran past them.
+     * @param consumer CONSUMER_SIMULATION or CONSUMER_RENDER
+     * @return Vsync timestamp in the System.nanoTime time base
+     */
+    public long awaitFrame(int consumer) {
+        synchronized (frameLock) {
+            long seenFrame = frameCount;
+            long deadline = System.nanoTime() + VSYNC_TIMEOUT_MILLIS * 1000000;
+            
+            while (running && !paused && frameCount == seenFrame) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1000000;
+                if (remainingMillis <= 0) {
+                    return System.nanoTime();
+                }
+                
+                try {
+                    frameLock.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    return System.nanoTime();
+                }
+            }
+            
+            if (frameCount == seenFrame) {
+                return System.nanoTime();
+            }
+            
+            long lastSeen = lastFrameSeen[consumer];
+            if (lastSeen > 0 && frameCount > lastSeen + 1) {
+                missedVsyncCounts[consumer] += frameCount - lastSeen - 1;
+            }
+            lastFrameSeen[consumer] = frameCount;
+            return lastFrameTimeNanos;
+        }
+    }
+    
+    /**
+     * Check whether threads should pace themselves with {@link #awaitFrame(int)}
+     * @return true in vsync mode
+     */
+    public boolean isVsyncMode() {
+        return mode == MODE_VSYNC;
+    }
+    
+    public int getMode() {
+        return mode;
+    }
+    
+    /**
+     * Get the refresh rate reported by the display
+     * @return Refresh rate in Hz
+     */
+    public float getDisplayRefreshRate() {
+        return displayRefreshRate;
+    }
+    
+    /**
+     * Get the refresh rate measured from vsync timestamps, rounded to
+     * the nearest Hz (e.g. 60, 90 or 120)
+     * @return Measured refresh rate in Hz
+     */
+    public int getRefreshRate() {
+        return Math.round(1000000000f / frameIntervalNanos);
+    }
+    
+    /**
+     * Get the measured time between vsyncs
+     * @return Vsync period in nanoseconds
+     */
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+    
+    /**
+     * Get the number of vsyncs a game thread missed because its previous
+     * frame was still running
+     * @param consumer CONSUMER_SIMULATION or CONSUMER_RENDER
+     * @return Missed vsync count since the scheduler was created
+     */
+    public long getMissedVsyncCount(int consumer) {
+        synchronized (frameLock) {
+            return missedVsyncCounts[consumer];
+        }
+    }
+}
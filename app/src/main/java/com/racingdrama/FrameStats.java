@@ -0,0 +1,176 @@
+package com.racingdrama;
+
+import java.util.Arrays;
+
+/**
+ * Records per-phase frame timings into preallocated ring buffers and
+ * answers rolling percentile and jank queries over them.
+ *
+ * Each phase is written by a single thread (update by the simulation
+ * thread, the rest by the render thread) without locking, so a query may
+ * race with a sample being written. That only ever skews a statistic by
+ * one sample, which is fine for profiling and keeps recording free.
+ */
+public class FrameStats {
+
+    // Timed phases
+    public static final int PHASE_LOCK_CANVAS = 0;
+    public static final int PHASE_UPDATE = 1;
+    public static final int PHASE_DRAW = 2;
+    public static final int PHASE_POST = 3;
+    public static final int PHASE_FRAME = 4; // Time between consecutive rendered frames
+    public static final int PHASE_COUNT = 5;
+    
+    // Samples kept per phase (power of two so the index can be masked)
+    public static final int CAPACITY = 256;
+    private static final int INDEX_MASK = CAPACITY - 1;
+    
+    // A frame counts as jank when it takes this much longer than the budget
+    private static final float JANK_FACTOR = 1.5f;
+    
+    private static final String[] PHASE_NAMES = {"lock", "update", "draw", "post", "frame"};
+    
+    // Ring buffers, one row per phase
+    private final long[][] samples = new long[PHASE_COUNT][CAPACITY];
+    private final long[] sampleCounts = new long[PHASE_COUNT];
+    
+    // Reused by percentile queries so they don't allocate
+    private final long[] sortBuffer = new long[CAPACITY];
+    
+    private volatile long frameBudgetNanos = 1000000000L / 60;
+    private volatile long jankCount;
+    
+    // Which canvas path the render thread is drawing through
+    private volatile boolean hardwareCanvas;
+    
+    /**
+     * Record one timing sample
+     * @param phase One of the PHASE_ constants
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(int phase, long nanos) {
+        long count = sampleCounts[phase];
+        samples[phase][(int) (count & INDEX_MASK)] = nanos;
+        sampleCounts[phase] = count + 1;
+    }
+    
+    /**
+     * Record the time between two rendered frames and count it as jank
+     * if it ran over budget
+     * @param intervalNanos Time since the previous frame in nanoseconds
+     */
+    public void recordFrame(long intervalNanos) {
+        record(PHASE_FRAME, intervalNanos);
+        
+        if (intervalNanos > frameBudgetNanos * JANK_FACTOR) {
+            jankCount++;
+        }
+    }
+    
+    /**
+     * Set the expected time per frame, normally the display's vsync period
+     * @param frameBudgetNanos Frame budget in nanoseconds
+     */
+    public void setFrameBudgetNanos(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+    
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+    
+    /**
+     * Get a percentile over the samples currently in a phase's ring buffer
+     * @param phase One of the PHASE_ constants
+     * @param percentile Percentile from 0 to 100
+     * @return Duration in nanoseconds, or 0 if nothing has been recorded
+     */
+    public synchronized long getPercentileNanos(int phase, int percentile) {
+        int size = getWindowSize(phase);
+        if (size == 0) {
+            return 0;
+        }
+        
+        System.arraycopy(samples[phase], 0, sortBuffer, 0, size);
+        Arrays.sort(sortBuffer, 0, size);
+        
+        // Nearest-rank percentile
+        int rank = (int) Math.ceil(percentile / 100.0 * size);
+        int index = Math.max(0, Math.min(size - 1, rank - 1));
+        return sortBuffer[index];
+    }
+    
+    /**
+     * Get the most recent sample for a phase
+     * @param phase One of the PHASE_ constants
+     * @return Duration in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getLatestNanos(int phase) {
+        long count = sampleCounts[phase];
+        if (count == 0) {
+            return 0;
+        }
+        return samples[phase][(int) ((count - 1) & INDEX_MASK)];
+    }
+    
+    /**
+     * Get the number of samples the rolling statistics are computed over
+     * @param phase One of the PHASE_ constants
+     * @return Samples in the window, at most CAPACITY
+     */
+    public int getWindowSize(int phase) {
+        return (int) Math.min(sampleCounts[phase], CAPACITY);
+    }
+    
+    /**
+     * Get the total number of samples ever recorded for a phase
+     * @param phase One of the PHASE_ constants
+     * @return Sample count
+     */
+    public long getSampleCount(int phase) {
+        return sampleCounts[phase];
+    }
+    
+    /**
+     * Get the number of frames that ran over budget
+     * @return Jank count since the last reset
+     */
+    public long getJankCount() {
+        return jankCount;
+    }
+    
+    /**
+     * Record which canvas path is active
+     * @param hardwareCanvas true when drawing through lockHardwareCanvas
+     */
+    public void setHardwareCanvas(boolean hardwareCanvas) {
+        this.hardwareCanvas = hardwareCanvas;
+    }
+    
+    /**
+     * Check which canvas path is active
+     * @return true for the hardware-accelerated canvas, false for software
+     */
+    public boolean isHardwareCanvas() {
+        return hardwareCanvas;
+    }
+    
+    /**
+     * Get a short display name for a phase
+     * @param phase One of the PHASE_ constants
+     * @return Phase name
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+    
+    /**
+     * Forget all samples and the jank count
+     */
+    public synchronized void reset() {
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            sampleCounts[phase] = 0;
+        }
+        jankCount = 0;
+    }
+}
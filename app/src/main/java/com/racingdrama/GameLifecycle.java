@@ -0,0 +1,125 @@
+package com.racingdrama;
+
+/**
+ * Lifecycle state shared by the long-lived game threads. The UI thread
+ * reports activity pause/resume and surface create/destroy; the game
+ * threads park here whenever the game can't run, instead of being torn
+ * down and recreated.
+ *
+ * The render thread brackets every frame with {@link #beginSurfaceUse()}
+ * and {@link #endSurfaceUse()}, so {@link #setSurfaceAvailable(boolean)}
+ * can wait for the frame in flight before the surface goes away.
+ */
+public class GameLifecycle {
+    // Lifecycle states
+    public static final int STATE_RUNNING = 0;
+    public static final int STATE_PAUSED = 1;       // Activity paused
+    public static final int STATE_SURFACE_LOST = 2; // Resumed, but no surface to draw on
+    public static final int STATE_STOPPED = 3;      // Threads should exit
+    
+    // Inputs from the UI thread, guarded by this
+    private boolean resumed = false;
+    private boolean surfaceAvailable = false;
+    private boolean stopped = false;
+    
+    // Render thread is between beginSurfaceUse and endSurfaceUse
+    private boolean surfaceInUse = false;
+    
+    // Bumped each time a surface becomes available
+    private int surfaceGeneration = 0;
+    
+    public synchronized void setResumed(boolean resumed) {
+        this.resumed = resumed;
+        notifyAll();
+    }
+    
+    /**
+     * Report whether the surface exists. When it goes away this blocks
+     * until the render thread has finished the frame it is drawing.
+     * @param available true from surfaceCreated, false from surfaceDestroyed
+     */
+    public synchronized void setSurfaceAvailable(boolean available) {
+        this.surfaceAvailable = available;
+        if (available) {
+            surfaceGeneration++;
+        }
+        notifyAll();
+        
+        while (!available && surfaceInUse) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Tell the game threads to exit
+     */
+    public synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+    
+    public synchronized int getState() {
+        if (stopped) {
+            return STATE_STOPPED;
+        } else if (!resumed) {
+            return STATE_PAUSED;
+        } else if (!surfaceAvailable) {
+            return STATE_SURFACE_LOST;
+        }
+        return STATE_RUNNING;
+    }
+    
+    public boolean isRunning() {
+        return getState() == STATE_RUNNING;
+    }
+    
+    /**
+     * Parks the calling game thread until the game can run again
+     * @return true to carry on running, false if the thread should exit
+     */
+    public synchronized boolean awaitRunning() {
+        int state;
+        while ((state = getState()) != STATE_RUNNING && state != STATE_STOPPED) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return state == STATE_RUNNING;
+    }
+    
+    /**
+     * Claims the surface for one frame
+     * @return true if the frame may be drawn; false if the game stopped running
+     */
+    public synchronized boolean beginSurfaceUse() {
+        if (getState() != STATE_RUNNING) {
+            return false;
+        }
+        surfaceInUse = true;
+        return true;
+    }
+    
+    /**
+     * Releases the surface after a frame started by {@link #beginSurfaceUse()}
+     */
+    public synchronized void endSurfaceUse() {
+        surfaceInUse = false;
+        notifyAll();
+    }
+    
+    /**
+     * Get a counter that changes every time a new surface is created, so
+     * per-surface choices can be made again
+     * @return Surface generation
+     */
+    public synchronized int getSurfaceGeneration() {
+        return surfaceGeneration;
+    }
+}
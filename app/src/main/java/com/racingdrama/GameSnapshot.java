@@ -0,0 +1,90 @@
+package com.racingdrama;
+
+/**
+ * Copy of everything the renderer needs from one simulation step.
+ * The simulation thread fills a snapshot and hands it over through a
+ * {@link SnapshotBuffer}; the render thread only ever reads it.
+ */
+public class GameSnapshot {
+    
+    // Publish order, used by the buffer to tell fresh snapshots from stale ones
+    long sequence;
+    
+    // Wall-clock time (System.nanoTime) that the current state corresponds to
+    long simTimeNanos;
+    
+    // Player state
+    int playerX;
+    int playerY;
+    int playerPrevX;
+    int playerPrevY;
+    float leanAngle;
+    float suspensionOffset;
+    int bikeState; // One of the Player.BIKE_ constants
+    String stuntType;
+    int roadLeftBoundary;
+    int roadRightBoundary;
+    
+    // Obstacle state, one entry per obstacle
+    int obstacleCount;
+    int[] obstacleX = new int[0];
+    int[] obstacleY = new int[0];
+    int[] obstaclePrevY = new int[0];
+    int[] obstacleType = new int[0];
+    
+    // Game state
+    int score;
+    int distance;
+    int finishLineY;
+    int roadScroll; // Road movement during the last step, 0 once the road has stopped
+    boolean gameOver;
+    boolean gameWon;
+    String touchDirection;
+    
+    // Live particles, one entry per particle
+    int particleCount;
+    float[] particleX = new float[0];
+    float[] particleY = new float[0];
+    float[] particlePrevX = new float[0];
+    float[] particlePrevY = new float[0];
+    int[] particleAlpha = new int[0];
+    byte[] particleSprite = new byte[0];
+    
+    // Effect state
+    String stuntBonusText;
+    int stuntBonusTimer;
+    
+    /**
+     * Makes sure the obstacle arrays can hold the given number of entries.
+     * Only grows, so steady-state publishing doesn't allocate.
+     * @param count Number of obstacles that will be written
+     */
+    void ensureObstacleCapacity(int count) {
+        if (obstacleX.length >= count) {
+            return;
+        }
+        
+        obstacleX = new int[count];
+        obstacleY = new int[count];
+        obstaclePrevY = new int[count];
+        obstacleType = new int[count];
+    }
+    
+    /**
+     * Makes sure the particle arrays can hold the given number of entries.
+     * Only grows, so steady-state publishing doesn't allocate.
+     * @param count Number of particles that will be written
+     */
+    void ensureParticleCapacity(int count) {
+        if (particleX.length >= count) {
+            return;
+        }
+        
+        particleX = new float[count];
+        particleY = new float[count];
+        particlePrevX = new float[count];
+        particlePrevY = new float[count];
+        particleAlpha = new int[count];
+        particleSprite = new byte[count];
+    }
+}
@@ -6,47 +6,87 @@ import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.Typeface;
+import android.os.Build;
 import android.util.Log;
 import android.view.MotionEvent;
+import android.view.Surface;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.racingdrama.engine.CollisionMask;
+import com.racingdrama.engine.GameEngine;
+import com.racingdrama.engine.GameInput;
+import com.racingdrama.engine.InputRecorder;
+import com.racingdrama.engine.InputReplayer;
+import com.racingdrama.engine.Obstacle;
+import com.racingdrama.engine.ObstacleStore;
+import com.racingdrama.engine.ParticleSystem;
+import com.racingdrama.engine.Player;
+import com.racingdrama.engine.SpriteSizes;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class GameView extends SurfaceView implements SurfaceHolder.Callback {
-    // Game thread
-    private GameThread gameThread;
+    // Canvas paths for the render thread
+    public static final int RENDER_MODE_AUTO = 0;     // Hardware where available, else software
+    public static final int RENDER_MODE_SOFTWARE = 1; // Always SurfaceHolder.lockCanvas
+    public static final int RENDER_MODE_HARDWARE = 2; // Surface.lockHardwareCanvas (API 23+)
+    
+    // Game threads, started with the first surface and parked while the game can't run
+    private SimulationThread simulationThread;
+    private RenderThread renderThread;
+    
+    // Running/paused/surface-lost state shared with the game threads
+    private final GameLifecycle lifecycle = new GameLifecycle();
+    
+    // Hands finished simulation states to the render thread
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    
+    // Frame pacing (vsync by default, sleep loop as fallback)
+    private volatile FrameScheduler frameScheduler;
+    private int frameSchedulerMode = FrameScheduler.MODE_VSYNC;
+    private int appliedSchedulerMode = -1;
+    
+    // Frame timing instrumentation
+    private final FrameStats frameStats = new FrameStats();
+    private PerformanceOverlay performanceOverlay;
+    private volatile boolean performanceOverlayEnabled = false;
+    
+    // Requested canvas path
+    private volatile int renderMode = RENDER_MODE_AUTO;
     
     // Screen dimensions
     private int screenWidth;
     private int screenHeight;
     
     // Game state
-    private boolean isPlaying = false;
-    private boolean gameOver = false;
-    private boolean gameWon = false;
-    
-    // Game objects
-    private Player player;
-    private List<Obstacle> obstacles;
-    private int score = 0;
-    private int distance = 0;
-    private int finishLineY = -5000; // Finish line position (negative means it's ahead)
-    private int roadY = 0;
-    private int roadSpeed = 5;
-    
-    // Effect timers
-    private boolean showCrashEffect = false;
-    private int crashEffectTimer = 0;
-    private int crashEffectX = 0;
-    private int crashEffectY = 0;
-    private String stuntBonusText = null;
-    private int stuntBonusTimer = 0;
+    private volatile boolean gameOver = false;
+    private volatile boolean gameWon = false;
+    
+    // Game rules, only touched by the simulation thread
+    private GameEngine engine;
+    private final GameInput input = new GameInput();
+    private SpriteSizes spriteSizes;
+    
+    // Input recording and replay, only touched by the simulation thread
+    private InputRecorder inputRecorder;
+    private InputReplayer inputReplayer;
+    
+    // Recording and replay requests (written on the UI thread, applied by the simulation thread)
+    private volatile File pendingRecordingFile;
+    private volatile File pendingReplayFile;
+    private volatile boolean stopRecordingRequested = false;
+    
+    // Draws the bike from snapshots
+    private PlayerRenderer playerRenderer;
     
     // Touch controls
     private VirtualJoystick joystick; // Virtual joystick for movement
@@ -54,12 +94,15 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     private TouchButton jumpButton;
     private TouchButton restartButton;
     private TouchButton resetButton;
+    private TouchButton statsButton;
     
-    // Touch input state
-    private String touchDirection = null;
-    private String touchStunt = null;
+    // Touch input state (written on the UI thread, read by the simulation thread)
+    private volatile String touchDirection = null;
+    private volatile String touchStunt = null;
+    private volatile boolean restartRequested = false;
+    private volatile boolean resetRequested = false;
     
-    // Game assets
+    // Game assets (obstacle and effect images are released once packed into the atlas)
     private Bitmap bikeNormalImg;
     private Bitmap bikeWheelieImg;
     private Bitmap bikeJumpImg;
@@ -67,47 +110,105 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     private Bitmap rockImg;
     private Bitmap oilImg;
     private Bitmap coneImg;
-    private Bitmap backgroundImg;
     private Bitmap finishLineImg;
-    private Bitmap speedLinesImg;
-    private Bitmap dustImg;
     private Bitmap crashImg;
-    private Bitmap stuntStarsImg;
+    
+    // Obstacles and effects packed into shared pages
+    private SpriteAtlas spriteAtlas;
+    
+    // Tiled road background with a parallax cloud layer
+    private ScrollingBackground background;
+    private int cloudLayer;
+    
+    // Atlas regions for obstacle sprites, indexed by Obstacle type id
+    private int[] obstacleRegions;
+    
+    // Solid pixels of each obstacle sprite, taken before the atlas frees the separate bitmaps
+    private CollisionMask[] obstacleMasks;
+    
+    // Draws dust, speed lines, stars and crash debris from snapshots
+    private ParticleRenderer particleRenderer;
     
     // Paint objects for drawing
     private Paint textPaint;
     private Paint scorePaint;
     private Paint gameOverPaint;
+    private Paint stuntPaint;
+    private Paint bonusPaint;
+    private Paint hintPaint;
     
-    // Random generator
-    private Random random;
+    // Reused for HUD text so drawing a frame doesn't build Strings (render thread only)
+    private final TextBuffer hudText = new TextBuffer(128);
+    
+    // HUD text pre-rendered per paint, so drawing it is a few blits instead of text layout
+    private GlyphAtlas hudFont;
+    private GlyphAtlas stuntFont;
+    private GlyphAtlas scoreFont;
+    private GlyphAtlas bonusFont;
+    private GlyphAtlas gameOverFont;
+    private GlyphAtlas winFont;
+    private GlyphAtlas hintFont;
+    private GlyphAtlas[] hudFonts;
+    
+    // Fades the stunt bonus text (render thread only)
+    private final Paint bonusAlphaPaint = new Paint();
+    
+    // Progress bar on the loading screen (render thread only)
+    private final Paint loadingPaint = new Paint();
+    
+    // Opt-in check that steady-state frames don't allocate
+    private final FrameAllocationCheck allocationCheck = new FrameAllocationCheck();
     
     private BikeStyleManager bikeStyleManager;
     
+    // Style version the bike renderer last picked up (render thread only once loaded)
+    private int appliedBikeStyleVersion;
+    
+    // Bitmap formats and memory budget for every game asset
+    private final AssetPolicy assetPolicy;
+    
+    // Set once hardware bitmaps have been moved back for the software canvas (render thread only)
+    private boolean softwareAssets = false;
+    
+    // Background asset loading; the game objects exist once assetsReady opens
+    private final AssetLoader assetLoader = new AssetLoader();
+    private final RasterCache rasterCache;
+    private final CountDownLatch assetsReady = new CountDownLatch(1);
+    private volatile boolean assetsLoaded = false;
+    private volatile float loadingProgress = 0;
+    
     public GameView(Context context, int screenWidth, int screenHeight) {
+        this(context, screenWidth, screenHeight, AssetPolicy.forDevice(context));
+    }
+    
+    /**
+     * Constructor with a custom asset policy, e.g. to test a tighter memory budget
+     * @param context Activity context
+     * @param screenWidth Screen width in pixels
+     * @param screenHeight Screen height in pixels
+     * @param assetPolicy Bitmap formats and memory budget for the game assets
+     */
+    public GameView(Context context, int screenWidth, int screenHeight, AssetPolicy assetPolicy) {
         super(context);
         
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
+        this.assetPolicy = assetPolicy;
+        this.rasterCache = new RasterCache(context, screenWidth, screenHeight);
         
         // Get the holder and add callback
         SurfaceHolder holder = getHolder();
         holder.addCallback(this);
         
-        // Create bike style manager
-        bikeStyleManager = new BikeStyleManager(context);
-        
-        // Initialize random generator
-        random = new Random();
-        
         // Initialize paint objects
         initPaints();
         
-        // Load game assets
-        loadAssets();
+        // Touch controls and the overlay don't need any assets
+        createTouchControls();
+        performanceOverlay = new PerformanceOverlay(10, 280);
         
-        // Initialize game objects
-        initGame();
+        // Rasterize the assets off the UI thread; the game starts once they are in
+        loadAssets(context);
         
         // Set focusable so we can handle events
         setFocusable(true);
@@ -131,54 +232,159 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         gameOverPaint.setTextSize(72);
         gameOverPaint.setTypeface(Typeface.DEFAULT_BOLD);
         gameOverPaint.setAntiAlias(true);
+        
+        stuntPaint = new Paint(textPaint);
+        stuntPaint.setColor(Color.YELLOW);
+        
+        bonusPaint = new Paint(scorePaint);
+        bonusPaint.setColor(Color.YELLOW);
+        
+        hintPaint = new Paint(textPaint);
+        hintPaint.setTextSize(18);
+        
+        loadingPaint.setColor(Color.WHITE);
+        loadingPaint.setStrokeWidth(3);
     }
     
-    private void loadAssets() {
-        try {
-            // Load bike images from the BikeStyleManager
-            bikeNormalImg = bikeStyleManager.getBikeNormalImg();
-            bikeWheelieImg = bikeStyleManager.getBikeWheelieImg();
-            bikeJumpImg = bikeStyleManager.getBikeJumpImg();
-            
-            // Load all other game images with error handling
-            loadDrawableWithFallback("car", Color.RED, new int[]{100, 60});
-            loadDrawableWithFallback("rock", Color.GRAY, new int[]{50, 50});
-            loadDrawableWithFallback("oil", Color.BLACK, new int[]{60, 30});
-            loadDrawableWithFallback("cone", Color.YELLOW, new int[]{40, 60});
-            loadDrawableWithFallback("background", Color.BLUE, new int[]{screenWidth, screenHeight});
-            loadDrawableWithFallback("finish_line", Color.WHITE, new int[]{screenWidth, 50});
-            loadDrawableWithFallback("speed_lines", Color.WHITE, new int[]{200, 120});
-            loadDrawableWithFallback("dust", Color.LTGRAY, new int[]{150, 100});
-            loadDrawableWithFallback("crash", Color.YELLOW, new int[]{200, 200});
-            loadDrawableWithFallback("stunt_stars", Color.YELLOW, new int[]{200, 120});
+    private void buildHudFonts() {
+        hudFont = new GlyphAtlas(textPaint, GlyphAtlas.DIGITS_AND_SYMBOLS, new String[]{
+                "Score: ", "Distance: ", "Bike X: ", ", Width: ", ", Right: ", "Road: ", "Direction: ",
+                "none", "left", "right", "up", "down"});
+        stuntFont = new GlyphAtlas(stuntPaint, "", new String[]{"PERFORMING: ", "WHEELIE", "JUMP"});
+        scoreFont = new GlyphAtlas(scorePaint, GlyphAtlas.DIGITS_AND_SYMBOLS, new String[]{"Final Score: "});
+        bonusFont = new GlyphAtlas(bonusPaint, GlyphAtlas.DIGITS_AND_SYMBOLS, new String[]{" STUNT!"});
+        gameOverFont = new GlyphAtlas(gameOverPaint, "", new String[]{"GAME OVER"});
+        hintFont = new GlyphAtlas(hintPaint, "", new String[]{"Move", "Wheelie", "Jump", "Reset Position"});
+        
+        Paint winPaint = new Paint(gameOverPaint);
+        winPaint.setColor(Color.GREEN);
+        winFont = new GlyphAtlas(winPaint, "", new String[]{"YOU WIN!"});
+        
+        hudFonts = new GlyphAtlas[]{hudFont, stuntFont, scoreFont, bonusFont, gameOverFont, winFont, hintFont};
+        for (GlyphAtlas font : hudFonts) {
+            font.getAtlas().trackPages(assetPolicy);
+            font.getAtlas().toStatic(assetPolicy);
+        }
+    }
+    
+    private void loadAssets(final Context context) {
+        // Each task fills its own fields, so they can run in any order
+        Runnable[] tasks = {
+            new Runnable() {
+                @Override
+                public void run() {
+                    // Load bike images from the BikeStyleManager
+                    bikeStyleManager = new BikeStyleManager(context, assetPolicy, rasterCache);
+                    appliedBikeStyleVersion = bikeStyleManager.getStyleVersion();
+                    bikeNormalImg = bikeStyleManager.getBikeNormalImg();
+                    bikeWheelieImg = bikeStyleManager.getBikeWheelieImg();
+                    bikeJumpImg = bikeStyleManager.getBikeJumpImg();
+                }
+            },
+            new Runnable() {
+                @Override
+                public void run() {
+                    // Pre-render the HUD text
+                    buildHudFonts();
+                }
+            },
+            // Only the finish line's checkerboard fills its whole image, so only it drops the alpha channel
+            drawableTask("car", Color.RED, new int[]{100, 60}, false),
+            drawableTask("rock", Color.GRAY, new int[]{50, 50}, false),
+            drawableTask("oil", Color.BLACK, new int[]{60, 30}, false),
+            drawableTask("cone", Color.YELLOW, new int[]{40, 60}, false),
+            drawableTask("finish_line", Color.WHITE, new int[]{screenWidth, 50}, true),
+            drawableTask("crash", Color.YELLOW, new int[]{200, 200}, false)
+        };
+        
+        Runnable finish = new Runnable() {
+            @Override
+            public void run() {
+                // Create fallback images if there's a catastrophic failure
+                if (bikeNormalImg == null) {
+                    createFallbackImages();
+                }
+                
+                // Pack the small sprites into an atlas
+                buildSpriteAtlas();
+                
+                // Initialize game objects
+                initGame();
+                
+                // Every entry this start needs is written by now
+                rasterCache.prune();
+            }
+        };
+        
+        assetLoader.load(tasks, finish, new AssetLoader.Listener() {
+            @Override
+            public void onProgress(int completed, int total) {
+                loadingProgress = (float) completed / total;
+            }
             
-            // Scale background to screen size if needed
-            if (backgroundImg != null) {
-                backgroundImg = Bitmap.createScaledBitmap(backgroundImg, screenWidth, screenHeight, true);
+            @Override
+            public void onLoaded() {
+                assetsLoaded = true;
+                assetsReady.countDown();
             }
-        } catch (Exception e) {
-            // Create fallback images if there's a catastrophic failure
-            createFallbackImages();
+        });
+    }
+    
+    private Runnable drawableTask(final String resourceName, final int fallbackColor, final int[] dimensions, final boolean opaque) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                loadDrawableWithFallback(resourceName, fallbackColor, dimensions, opaque);
+            }
+        };
+    }
+    
+    /**
+     * Waits for the assets to finish loading and the game to be created
+     * @param timeoutMillis Longest time to wait
+     * @return true if loaded, false on timeout or interrupt
+     */
+    public boolean awaitLoaded(long timeoutMillis) {
+        try {
+            return assetsReady.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            return false;
         }
     }
     
-    private void loadDrawableWithFallback(String resourceName, int fallbackColor, int[] dimensions) {
+    /**
+     * Check whether the assets have loaded and the game exists
+     * @return true once the game can run
+     */
+    public boolean isLoaded() {
+        return assetsLoaded;
+    }
+    
+    private void loadDrawableWithFallback(String resourceName, int fallbackColor, int[] dimensions, boolean opaque) {
         try {
             int resourceId = getResources().getIdentifier(resourceName, "drawable", getContext().getPackageName());
-            Bitmap bitmap = null;
+            
+            // Use the pixels from an earlier start, or the ones rasterized at build time
+            Bitmap bitmap = rasterCache.getBase(resourceName, assetPolicy);
             
             // Try to load as vector drawable first
             try {
-                VectorDrawableCompat drawable = VectorDrawableCompat.create(getResources(), resourceId, null);
+                VectorDrawableCompat drawable = bitmap == null ? VectorDrawableCompat.create(getResources(), resourceId, null) : null;
                 if (drawable != null) {
-                    bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
+                    bitmap = assetPolicy.createBitmap(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), opaque);
                     Canvas canvas = new Canvas(bitmap);
                     drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
                     drawable.draw(canvas);
+                    rasterCache.put(resourceName, RasterCache.NO_STYLE, bitmap);
                 }
             } catch (Exception e) {
                 // If vector drawable fails, try BitmapFactory
-                bitmap = BitmapFactory.decodeResource(getResources(), resourceId);
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inPreferredConfig = assetPolicy.configFor(opaque);
+                bitmap = BitmapFactory.decodeResource(getResources(), resourceId, options);
+                if (bitmap != null) {
+                    assetPolicy.track(bitmap);
+                }
             }
             
             // If both methods fail, create a fallback
@@ -200,24 +406,12 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                 case "cone":
                     coneImg = bitmap;
                     break;
-                case "background":
-                    backgroundImg = bitmap;
-                    break;
                 case "finish_line":
                     finishLineImg = bitmap;
                     break;
-                case "speed_lines":
-                    speedLinesImg = bitmap;
-                    break;
-                case "dust":
-                    dustImg = bitmap;
-                    break;
                 case "crash":
                     crashImg = bitmap;
                     break;
-                case "stunt_stars":
-                    stuntStarsImg = bitmap;
-                    break;
             }
         } catch (Exception e) {
             // Create a fallback bitmap if anything goes wrong
@@ -237,30 +431,19 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                 case "cone":
                     coneImg = fallback;
                     break;
-                case "background":
-                    backgroundImg = fallback;
-                    break;
                 case "finish_line":
                     finishLineImg = fallback;
                     break;
-                case "speed_lines":
-                    speedLinesImg = fallback;
-                    break;
-                case "dust":
-                    dustImg = fallback;
-                    break;
                 case "crash":
                     crashImg = fallback;
                     break;
-                case "stunt_stars":
-                    stuntStarsImg = fallback;
-                    break;
             }
         }
     }
     
     private Bitmap createFallbackBitmap(int width, int height, int color) {
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        // Fallbacks fill their whole area, so they never need alpha
+        Bitmap bitmap = assetPolicy.trackFallback(Bitmap.createBitmap(width, height, assetPolicy.configFor(true)));
         Canvas canvas = new Canvas(bitmap);
         Paint paint = new Paint();
         paint.setColor(color);
@@ -285,82 +468,115 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         rockImg = createFallbackBitmap(50, 50, Color.GRAY);
         oilImg = createFallbackBitmap(60, 30, Color.BLACK);
         coneImg = createFallbackBitmap(40, 60, Color.YELLOW);
-        backgroundImg = createFallbackBitmap(screenWidth, screenHeight, Color.BLUE);
         finishLineImg = createFallbackBitmap(screenWidth, 50, Color.WHITE);
-        speedLinesImg = createFallbackBitmap(200, 120, Color.WHITE);
-        dustImg = createFallbackBitmap(150, 100, Color.LTGRAY);
         crashImg = createFallbackBitmap(200, 200, Color.YELLOW);
-        stuntStarsImg = createFallbackBitmap(200, 120, Color.YELLOW);
     }
     
-    private void initGame() {
-        // Create player
-        player = new Player(bikeNormalImg, bikeWheelieImg, bikeJumpImg, screenWidth, screenHeight);
+    private void buildSpriteAtlas() {
+        // Particle sprites are generated; the crash image is the last particle sprite
+        Bitmap[] particleSprites = ParticleRenderer.createSprites();
+        String[] names = {"car", "rock", "oil", "cone", "crash",
+                ParticleRenderer.SPRITE_NAMES[ParticleSystem.SPRITE_DUST],
+                ParticleRenderer.SPRITE_NAMES[ParticleSystem.SPRITE_SPEED_LINE],
+                ParticleRenderer.SPRITE_NAMES[ParticleSystem.SPRITE_STAR],
+                ParticleRenderer.SPRITE_NAMES[ParticleSystem.SPRITE_DEBRIS]};
+        Bitmap[] bitmaps = {carImg, rockImg, oilImg, coneImg, crashImg,
+                assetPolicy.track(particleSprites[ParticleSystem.SPRITE_DUST]),
+                assetPolicy.track(particleSprites[ParticleSystem.SPRITE_SPEED_LINE]),
+                assetPolicy.track(particleSprites[ParticleSystem.SPRITE_STAR]),
+                assetPolicy.track(particleSprites[ParticleSystem.SPRITE_DEBRIS])};
+        spriteAtlas = new SpriteAtlas(names, bitmaps, SpriteAtlas.DEFAULT_PAGE_SIZE);
+        spriteAtlas.trackPages(assetPolicy);
         
-        // Set effect images for player
-        player.setEffectImages(speedLinesImg, dustImg, stuntStarsImg);
+        // Build the obstacle sprite table used by the renderer
+        obstacleRegions = new int[Obstacle.TYPE_COUNT];
+        obstacleRegions[Obstacle.TYPE_CAR] = spriteAtlas.findRegion("car");
+        obstacleRegions[Obstacle.TYPE_ROCK] = spriteAtlas.findRegion("rock");
+        obstacleRegions[Obstacle.TYPE_OIL] = spriteAtlas.findRegion("oil");
+        obstacleRegions[Obstacle.TYPE_CONE] = spriteAtlas.findRegion("cone");
         
-        // Create obstacles
-        obstacles = new ArrayList<>();
-        createObstacles();
+        particleRenderer = new ParticleRenderer(spriteAtlas);
         
-        // Create touch controls
-        createTouchControls();
-    }
-    
-    private void createObstacles() {
-        // Create initial obstacles
-        for (int i = 0; i < 5; i++) {
-            // Get exact road boundaries from Player class
-            int roadLeftBoundary = player.getRoadLeftBoundary();
-            int roadRightBoundary = player.getRoadRightBoundary();
-            
-            // Spread obstacles further apart vertically
-            int y = random.nextInt(800) - 1000; // Start further above the screen and more spread out
-            
-            // Reduce speed range to make obstacles come more slowly
-            int speed = random.nextInt(2) + 2;  // Speed between 2-3 (slower)
-            
-            String obstacleType = getRandomObstacleType();
-            
-            Bitmap obstacleImg;
-            boolean isHazard = true;
-            
-            switch (obstacleType) {
-                case "car":
-                    obstacleImg = carImg;
-                    break;
-                case "rock":
-                    obstacleImg = rockImg;
-                    break;
-                case "oil":
-                    obstacleImg = oilImg;
-                    isHazard = false;
-                    break;
-                case "cone":
-                    obstacleImg = coneImg;
-                    break;
-                default:
-                    obstacleImg = carImg;
-                    break;
+        obstacleMasks = new CollisionMask[Obstacle.TYPE_COUNT];
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            obstacleMasks[typeId] = createCollisionMask(bitmaps[typeId]);
+        }
+        
+        // The atlas holds copies, so free the separate bitmaps it packed
+        for (int i = 0; i < bitmaps.length; i++) {
+            if (spriteAtlas.isPacked(i)) {
+                assetPolicy.release(bitmaps[i]);
             }
-            
-            // Ensure obstacles stay completely within road boundaries
-            // Account for obstacle width to prevent it from extending beyond road edges
-            int obstacleWidth = obstacleImg.getWidth();
-            int maxX = roadRightBoundary - obstacleWidth;
-            int minX = roadLeftBoundary;
-            
-            // Generate random x position within safe road boundaries
-            int x = random.nextInt(maxX - minX) + minX;
-            
-            obstacles.add(new Obstacle(obstacleImg, x, y, speed, obstacleType, isHazard, player.getRoadLeftBoundary(), player.getRoadRightBoundary()));
         }
+        carImg = null;
+        rockImg = null;
+        oilImg = null;
+        coneImg = null;
+        crashImg = null;
+        
+        // Nothing draws into the pages again
+        spriteAtlas.toStatic(assetPolicy);
     }
     
-    private String getRandomObstacleType() {
-        String[] types = {"car", "rock", "oil", "cone"};
-        return types[random.nextInt(types.length)];
+    /**
+     * Reads a sprite's alpha into a collision mask
+     * @param bitmap Software bitmap
+     * @return Mask of the sprite's solid pixels
+     */
+    private static CollisionMask createCollisionMask(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return new CollisionMask(pixels, width, height);
+    }
+    
+    private void buildBackground() {
+        Player player = engine.getPlayer();
+        background = new ScrollingBackground(screenHeight);
+        background.addLayer(ScrollingBackground.createRoadTile(assetPolicy, screenWidth,
+                player.getRoadLeftBoundary(), player.getRoadRightBoundary()), 1.0f);
+        
+        // Clouds drift past faster than the road, as if closer to the camera; a short tile keeps the alpha layer small
+        cloudLayer = background.addLayer(ScrollingBackground.createCloudTile(assetPolicy, screenWidth, screenHeight / 4), 1.5f);
+    }
+    
+    /**
+     * Shows or hides the parallax cloud layer over the road
+     * @param enabled true to draw the clouds
+     */
+    public void setParallaxEnabled(boolean enabled) {
+        background.setLayerVisible(cloudLayer, enabled);
+    }
+    
+    private void initGame() {
+        // Tell the engine how big the sprites are
+        spriteSizes = new SpriteSizes();
+        spriteSizes.setBikeSize(bikeNormalImg.getWidth(), bikeNormalImg.getHeight());
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            spriteSizes.setObstacleSize(typeId, spriteAtlas.getWidth(obstacleRegions[typeId]), spriteAtlas.getHeight(obstacleRegions[typeId]));
+            spriteSizes.setObstacleMask(typeId, obstacleMasks[typeId]);
+        }
+        
+        // Collide with the bike's solid pixels, not its transparent corners; styles only change color
+        spriteSizes.setBikeMask(Player.BIKE_NORMAL, createCollisionMask(bikeNormalImg));
+        spriteSizes.setBikeMask(Player.BIKE_WHEELIE, createCollisionMask(bikeWheelieImg));
+        spriteSizes.setBikeMask(Player.BIKE_JUMP, createCollisionMask(bikeJumpImg));
+        
+        // Create the game rules with a fresh seed
+        engine = new GameEngine(screenWidth, screenHeight, spriteSizes, new Random().nextLong());
+        
+        // Create the bike renderer
+        playerRenderer = new PlayerRenderer(bikeNormalImg, bikeWheelieImg, bikeJumpImg,
+                engine.getPlayer().getMaxLeanAngle(), assetPolicy);
+        
+        // Build the road from small tiles instead of a full-screen image
+        buildBackground();
+        
+        // The remaining static images are only drawn from now on
+        background.toStatic(assetPolicy);
+        finishLineImg = assetPolicy.toStatic(finishLineImg);
+        Log.d("GameView", "Asset memory: " + assetPolicy.getUsedBytes() + " of " + assetPolicy.getBudgetBytes() + " bytes");
     }
     
     private void createTouchControls() {
@@ -416,28 +632,44 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                 Color.argb(buttonAlpha, 255, 0, 0),
                 Color.WHITE
         );
+        
+        // Performance overlay toggle (below the reset button)
+        statsButton = new TouchButton(
+                screenWidth - buttonSize * 2 - buttonMargin,
+                buttonMargin * 2 + buttonSize,
+                buttonSize * 2,
+                buttonSize,
+                "Stats",
+                Color.argb(buttonAlpha, 128, 128, 128),
+                Color.WHITE
+        );
     }
     
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
-        // Check if bike style has changed and reload if necessary
-        bikeStyleManager.reloadIfStyleChanged();
-        
-        // Reload bike images if style changed
-        bikeNormalImg = bikeStyleManager.getBikeNormalImg();
-        bikeWheelieImg = bikeStyleManager.getBikeWheelieImg();
-        bikeJumpImg = bikeStyleManager.getBikeJumpImg();
+        // Replace the scheduler only if a different pacing mode was requested;
+        // the game threads are parked while there is no surface
+        if (frameSchedulerMode != appliedSchedulerMode) {
+            if (frameScheduler != null) {
+                frameScheduler.stop();
+            }
+            FrameScheduler scheduler = new FrameScheduler(getContext(), frameSchedulerMode);
+            scheduler.start();
+            frameScheduler = scheduler;
+            appliedSchedulerMode = frameSchedulerMode;
+        }
         
-        // Update player bike images
-        if (player != null) {
-            player.updateBikeImages(bikeNormalImg, bikeWheelieImg, bikeJumpImg);
+        // The game threads live as long as the view and are only started once
+        if (simulationThread == null) {
+            simulationThread = new SimulationThread();
+            simulationThread.start();
+            
+            renderThread = new RenderThread(holder);
+            renderThread.start();
         }
         
-        // Start the game thread when surface is created
-        gameThread = new GameThread(holder);
-        gameThread.setRunning(true);
-        gameThread.start();
-        isPlaying = true;
+        lifecycle.setSurfaceAvailable(true);
+        onLifecycleChanged();
     }
     
     @Override
@@ -447,13 +679,272 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
     
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        // Stop the game thread when surface is destroyed
+        // Park the game threads; returns once the frame being drawn is posted
+        lifecycle.setSurfaceAvailable(false);
+        onLifecycleChanged();
+        
+        Log.d("GameView", "Refresh rate: " + frameScheduler.getRefreshRate() + "Hz, missed vsyncs: "
+                + frameScheduler.getMissedVsyncCount(FrameScheduler.CONSUMER_RENDER) + " render, "
+                + frameScheduler.getMissedVsyncCount(FrameScheduler.CONSUMER_SIMULATION) + " simulation");
+    }
+    
+    /**
+     * Pauses the game. The game threads stay alive but park until
+     * {@link #resume()}, so nothing runs while another activity is in front.
+     */
+    public void pause() {
+        lifecycle.setResumed(false);
+        onLifecycleChanged();
+    }
+    
+    /**
+     * Resumes the game after {@link #pause()}. The game only runs once a
+     * surface is available as well.
+     */
+    public void resume() {
+        lifecycle.setResumed(true);
+        onLifecycleChanged();
+    }
+    
+    /**
+     * Get the current lifecycle state
+     * @return One of the GameLifecycle.STATE_ constants
+     */
+    public int getLifecycleState() {
+        return lifecycle.getState();
+    }
+    
+    // Only ask for vsync callbacks while the game is actually running
+    private void onLifecycleChanged() {
+        FrameScheduler scheduler = frameScheduler;
+        if (scheduler == null) {
+            return;
+        }
+        
+        if (lifecycle.isRunning()) {
+            scheduler.resume();
+        } else {
+            scheduler.pause();
+        }
+    }
+    
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        
+        // The view is going away for good, so let the game threads exit
+        assetLoader.cancel();
+        if (bikeStyleManager != null) {
+            bikeStyleManager.release();
+        }
+        lifecycle.stop();
+        if (frameScheduler != null) {
+            frameScheduler.stop();
+        }
+        
+        if (simulationThread != null) {
+            joinThread(simulationThread);
+            joinThread(renderThread);
+            simulationThread = null;
+            renderThread = null;
+        }
+        
+        // Nothing draws the bike after the render thread has exited
+        if (playerRenderer != null) {
+            playerRenderer.recycle();
+        }
+        
+        closeRecorder();
+        closeReplayer();
+    }
+    
+    /**
+     * Selects how the game threads are paced. Takes effect the next time
+     * the surface is created.
+     * @param mode FrameScheduler.MODE_VSYNC or FrameScheduler.MODE_SLEEP
+     */
+    public void setFrameSchedulerMode(int mode) {
+        this.frameSchedulerMode = mode;
+    }
+    
+    /**
+     * Get the scheduler pacing the game threads, for refresh rate and missed vsync stats
+     * @return Active frame scheduler, or null before the surface is created
+     */
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+    
+    /**
+     * Get the per-phase frame timings recorded by the game threads
+     * @return Frame statistics
+     */
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+    
+    /**
+     * Get the check that counts allocations made while drawing each frame
+     * @return Frame allocation check, disabled until enabled by the caller
+     */
+    public FrameAllocationCheck getFrameAllocationCheck() {
+        return allocationCheck;
+    }
+    
+    public void setPerformanceOverlayEnabled(boolean enabled) {
+        this.performanceOverlayEnabled = enabled;
+    }
+    
+    public boolean isPerformanceOverlayEnabled() {
+        return performanceOverlayEnabled;
+    }
+    
+    /**
+     * Selects the canvas path used for drawing. A surface can't switch
+     * between software and hardware producers once drawn to, so the mode
+     * takes effect the next time the surface is created. Hardware is only
+     * used on API 23+; older devices always draw in software.
+     * @param mode RENDER_MODE_AUTO, RENDER_MODE_SOFTWARE or RENDER_MODE_HARDWARE
+     */
+    public void setRenderMode(int mode) {
+        this.renderMode = mode;
+    }
+    
+    public int getRenderMode() {
+        return renderMode;
+    }
+    
+    /**
+     * Check whether the render thread is drawing through the hardware canvas
+     * @return true for lockHardwareCanvas, false for the software canvas
+     */
+    public boolean isHardwareCanvasActive() {
+        return frameStats.isHardwareCanvas();
+    }
+    
+    /**
+     * Starts a new game and records it to a file until {@link #stopRecording()}.
+     * The file holds the seed and every step's input, so the run can be
+     * replayed exactly with {@link #startReplay(File)} or on a plain JVM.
+     * @param file File to write, replaced if it exists
+     */
+    public void startRecording(File file) {
+        pendingRecordingFile = file;
+    }
+    
+    public void stopRecording() {
+        stopRecordingRequested = true;
+    }
+    
+    /**
+     * Replaces the current game with a recorded one, played back in real
+     * time on the game loop. Live input resumes when the recording ends.
+     * @param file Recording made by {@link #startRecording(File)}
+     */
+    public void startReplay(File file) {
+        pendingReplayFile = file;
+    }
+    
+    /**
+     * Applies recording and replay requests. Runs on the simulation thread
+     * between steps, so the engine can be swapped safely.
+     */
+    private void applyRecordingRequests() {
+        if (stopRecordingRequested) {
+            stopRecordingRequested = false;
+            closeRecorder();
+        }
+        
+        File recordingFile = pendingRecordingFile;
+        if (recordingFile != null) {
+            pendingRecordingFile = null;
+            closeRecorder();
+            closeReplayer();
+            
+            // Record from the very first step of a freshly seeded game
+            engine = new GameEngine(screenWidth, screenHeight, spriteSizes, new Random().nextLong());
+            try {
+                inputRecorder = new InputRecorder(new FileOutputStream(recordingFile), engine, System.nanoTime());
+            } catch (IOException e) {
+                Log.e("GameView", "Error starting recording: " + e.getMessage());
+            }
+        }
+        
+        File replayFile = pendingReplayFile;
+        if (replayFile != null) {
+            pendingReplayFile = null;
+            closeRecorder();
+            closeReplayer();
+            
+            try {
+                inputReplayer = new InputReplayer(new FileInputStream(replayFile));
+                engine = inputReplayer.createEngine();
+            } catch (IOException e) {
+                Log.e("GameView", "Error starting replay: " + e.getMessage());
+                closeReplayer();
+            }
+        }
+    }
+    
+    /**
+     * Reads this step's input from the replay
+     * @return false if there is no replay or it has ended
+     */
+    private boolean readReplayInput() {
+        if (inputReplayer == null) {
+            return false;
+        }
+        
+        try {
+            if (inputReplayer.next(input)) {
+                return true;
+            }
+            Log.d("GameView", "Replay finished after " + inputReplayer.getTickCount() + " steps");
+        } catch (IOException e) {
+            Log.e("GameView", "Error reading replay: " + e.getMessage());
+        }
+        closeReplayer();
+        return false;
+    }
+    
+    private void flushRecording() {
+        if (inputRecorder != null) {
+            try {
+                inputRecorder.flush();
+            } catch (IOException e) {
+                Log.e("GameView", "Error writing recording: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void closeRecorder() {
+        if (inputRecorder != null) {
+            try {
+                inputRecorder.close();
+            } catch (IOException e) {
+                Log.e("GameView", "Error closing recording: " + e.getMessage());
+            }
+            inputRecorder = null;
+        }
+    }
+    
+    private void closeReplayer() {
+        if (inputReplayer != null) {
+            try {
+                inputReplayer.close();
+            } catch (IOException e) {
+                // Nothing left to read
+            }
+            inputReplayer = null;
+        }
+    }
+    
+    private void joinThread(Thread thread) {
         boolean retry = true;
-        gameThread.setRunning(false);
         
         while (retry) {
             try {
-                gameThread.join();
+                thread.join();
                 retry = false;
             } catch (InterruptedException e) {
                 // Retry
@@ -489,13 +980,16 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                         jumpButton.setPressed(true);
                         touchStunt = "jump";
                     } else if ((gameOver || gameWon) && restartButton.isPressed(x, y)) {
-                        restartGame();
+                        // Applied by the simulation thread on its next step
+                        restartRequested = true;
                     } else if (resetButton.isPressed(x, y)) {
-                        player.resetPosition();
+                        resetRequested = true;
+                    } else if (statsButton.isPressed(x, y)) {
+                        performanceOverlayEnabled = !performanceOverlayEnabled;
                     }
                 }
                 break;
-                
+            
             case MotionEvent.ACTION_MOVE:
                 // Process all active pointers
                 for (int i = 0; i < event.getPointerCount(); i++) {
@@ -519,7 +1013,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                     }
                 }
                 break;
-                
+            
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_POINTER_UP:
                 // A finger was lifted
@@ -562,7 +1056,7 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                     }
                 }
                 break;
-                
+            
             case MotionEvent.ACTION_CANCEL:
                 // Reset all touch input
                 joystick.onTouchEvent(0, 0, MotionEvent.ACTION_CANCEL, 0);
@@ -582,172 +1076,242 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
         return true;
     }
     
-    private void restartGame() {
-        // Initialize game state
-        score = 0;
-        distance = 0;
-        obstacles.clear();
-        gameOver = false;
-        gameWon = false;
-        showCrashEffect = false;
+    private void update() {
+        applyRecordingRequests();
         
-        // Create new player with current bike style
-        player = new Player(bikeStyleManager.getBikeNormalImg(), 
-                           bikeStyleManager.getBikeWheelieImg(), 
-                           bikeStyleManager.getBikeJumpImg(), 
-                           screenWidth, screenHeight);
+        // A replay supplies the input instead of the touch controls
+        if (!readReplayInput()) {
+            // Collect this step's input
+            input.setJoystick(joystick.isActive() && joystick.isMoving(),
+                    joystick.getHorizontalMovement(), joystick.getVerticalMovement());
+            input.setDirection(touchDirection);
+            input.setStunt(touchStunt);
+            
+            // Apply requests from the UI thread
+            input.setRestart(restartRequested);
+            restartRequested = false;
+            input.setResetPosition(resetRequested);
+            resetRequested = false;
+        }
         
-        // Set effect images for player
-        player.setEffectImages(speedLinesImg, dustImg, stuntStarsImg);
+        if (inputRecorder != null) {
+            try {
+                inputRecorder.record(input, System.nanoTime());
+            } catch (IOException e) {
+                Log.e("GameView", "Error writing recording: " + e.getMessage());
+                closeRecorder();
+            }
+        }
         
-        // Create new obstacles
-        createObstacles();
+        engine.step(input);
+        
+        // Mirror end-of-game state for the touch handler
+        gameOver = engine.isGameOver();
+        gameWon = engine.isGameWon();
     }
     
-    private void update() {
-        if (!gameOver && !gameWon) {
-            // Update road position (for scrolling effect)
-            roadY = (roadY + roadSpeed) % screenHeight;
-            
-            // Update player
-            player.update();
-            
-            // Handle movement (left hand)
-            if (joystick.isActive() && joystick.isMoving()) {
-                // Use continuous joystick movement
-                player.moveWithJoystick(joystick.getHorizontalMovement(), joystick.getVerticalMovement());
-            } else if (touchDirection != null) {
-                // Fallback to discrete direction movement
-                player.moveWithDirection(touchDirection);
-            }
-            
-            // Handle stunts separately (right hand)
-            if (touchStunt != null) {
-                player.performStunt(touchStunt);
-            }
-            
-            // Update obstacles
-            for (Obstacle obstacle : obstacles) {
-                obstacle.update(screenHeight, screenWidth);
-            }
-            
-            // Check for collisions
-            checkCollision();
-            
-            // Check for completed stunts
-            if (!player.isPerformingStunt() && player.getStuntCooldown() == player.getStuntCooldownDuration() - 1) {
-                // This means a stunt just ended
-                addStuntBonus();
-            }
-            
-            // Increase score and distance
-            score++;
-            distance += roadSpeed;
-            
-            // Check if player reached finish line
-            if (distance >= Math.abs(finishLineY)) {
-                gameWon = true;
-            }
+    /**
+     * Copies the current game state into a snapshot for the render thread
+     * @param snapshot Snapshot owned by the simulation thread
+     */
+    private void writeSnapshot(GameSnapshot snapshot) {
+        // Once the race is over the bike and obstacles stop, but their previous positions stay a
+        // step behind; publish them as unmoving so the end screen doesn't jitter between steps
+        boolean frozen = engine.isGameOver() || engine.isGameWon();
+        
+        Player player = engine.getPlayer();
+        snapshot.playerX = player.getX();
+        snapshot.playerY = player.getY();
+        snapshot.playerPrevX = frozen ? player.getX() : player.getPrevX();
+        snapshot.playerPrevY = frozen ? player.getY() : player.getPrevY();
+        snapshot.leanAngle = player.getLeanAngle();
+        snapshot.suspensionOffset = player.getSuspensionOffset();
+        snapshot.bikeState = player.getBikeState();
+        snapshot.stuntType = player.isPerformingStunt() ? player.getStuntType() : null;
+        snapshot.roadLeftBoundary = player.getRoadLeftBoundary();
+        snapshot.roadRightBoundary = player.getRoadRightBoundary();
+        
+        // The engine keeps obstacles as parallel arrays, so this is a few bulk copies
+        ObstacleStore obstacles = engine.getObstacles();
+        snapshot.ensureObstacleCapacity(obstacles.getCount());
+        obstacles.copyTo(snapshot.obstacleX, snapshot.obstacleY, snapshot.obstaclePrevY, snapshot.obstacleType);
+        snapshot.obstacleCount = obstacles.getCount();
+        if (frozen) {
+            System.arraycopy(snapshot.obstacleY, 0, snapshot.obstaclePrevY, 0, snapshot.obstacleCount);
         }
         
-        // Update effect timers
-        if (crashEffectTimer > 0) {
-            crashEffectTimer--;
-            if (crashEffectTimer <= 0) {
-                showCrashEffect = false;
+        // Copy only the live particles, packed, so the renderer loop has no gaps
+        ParticleSystem particles = engine.getParticles();
+        snapshot.ensureParticleCapacity(particles.getCapacity());
+        float[] particleX = particles.getX();
+        float[] particleY = particles.getY();
+        float[] particlePrevX = particles.getPrevX();
+        float[] particlePrevY = particles.getPrevY();
+        int[] life = particles.getLife();
+        int[] maxLife = particles.getMaxLife();
+        byte[] sprite = particles.getSprite();
+        int particleCount = 0;
+        for (int slot = 0; slot < particles.getHighWater(); slot++) {
+            if (life[slot] <= 0) {
+                continue;
             }
+            snapshot.particleX[particleCount] = particleX[slot];
+            snapshot.particleY[particleCount] = particleY[slot];
+            snapshot.particlePrevX[particleCount] = particlePrevX[slot];
+            snapshot.particlePrevY[particleCount] = particlePrevY[slot];
+            snapshot.particleAlpha[particleCount] = 255 * life[slot] / maxLife[slot];
+            snapshot.particleSprite[particleCount] = sprite[slot];
+            particleCount++;
         }
+        snapshot.particleCount = particleCount;
         
-        if (stuntBonusTimer > 0) {
-            stuntBonusTimer--;
+        snapshot.score = engine.getScore();
+        snapshot.distance = engine.getDistance();
+        snapshot.finishLineY = engine.getFinishLineY();
+        snapshot.roadScroll = frozen ? 0 : engine.getRoadSpeed();
+        snapshot.gameOver = engine.isGameOver();
+        snapshot.gameWon = engine.isGameWon();
+        snapshot.touchDirection = input.getDirection();
+        snapshot.stuntBonusText = engine.getStuntBonusText();
+        snapshot.stuntBonusTimer = engine.getStuntBonusTimer();
+    }
+    
+    /**
+     * Runs one simulation step and draws the result off-screen, outside the
+     * game threads. Lets instrumentation tests measure a single frame.
+     * @param canvas Canvas to draw on
+     * @param snapshot Snapshot to fill and draw
+     */
+    void stepAndDrawForTest(Canvas canvas, GameSnapshot snapshot) {
+        if (!canvas.isHardwareAccelerated()) {
+            useSoftwareAssets();
         }
+        
+        update();
+        writeSnapshot(snapshot);
+        
+        allocationCheck.beginFrame();
+        drawGame(canvas, snapshot, 0.5f);
+        allocationCheck.endFrame();
     }
     
-    private void checkCollision() {
-        for (Obstacle obstacle : obstacles) {
-            if (player.getCollisionRect().intersect(obstacle.getCollisionRect())) {
-                if (obstacle.isHazard()) {  // Only crash on hazardous obstacles
-                    gameOver = true;
-                    // Show crash effect
-                    showCrashEffect = true;
-                    crashEffectTimer = 60;  // Show for 1 second
-                    crashEffectX = player.getX();
-                    crashEffectY = player.getY();
-                } else {  // Oil slick - slow down the player
-                    player.setSpeed(Math.max(2, player.getSpeed() - 1));  // Slow down but not below 2
-                }
-            }
+    /**
+     * Moves hardware bitmaps back into the heap, since the software canvas
+     * can't draw them. Render thread only; it is the only reader of these images.
+     */
+    private void useSoftwareAssets() {
+        if (softwareAssets || !assetPolicy.usesHardwareBitmaps()) {
+            return;
+        }
+        softwareAssets = true;
+        
+        spriteAtlas.toSoftware(assetPolicy);
+        background.toSoftware(assetPolicy);
+        finishLineImg = assetPolicy.toSoftware(finishLineImg);
+        for (GlyphAtlas font : hudFonts) {
+            font.getAtlas().toSoftware(assetPolicy);
         }
     }
     
-    private void addStuntBonus() {
-        if (player.getLastStuntType() != null) {
-            int bonus = player.getStuntPoints(player.getLastStuntType());
-            score += bonus;
-            
-            // Show bonus text
-            stuntBonusText = "+" + bonus + " STUNT!";
-            stuntBonusTimer = 60;  // Show for 1 second
+    /**
+     * Switches the bike to the newest style the style manager has ready.
+     * Render thread only, since it replaces the bike renderer's atlas.
+     */
+    private void applyBikeStyle() {
+        if (bikeStyleManager == null) {
+            return;
+        }
+        
+        // Read the version first, so a change that lands meanwhile is picked up next frame
+        int styleVersion = bikeStyleManager.getStyleVersion();
+        if (styleVersion == appliedBikeStyleVersion) {
+            return;
         }
+        appliedBikeStyleVersion = styleVersion;
+        
+        Bitmap[] images = bikeStyleManager.getBikeImages();
+        bikeNormalImg = images[Player.BIKE_NORMAL];
+        bikeWheelieImg = images[Player.BIKE_WHEELIE];
+        bikeJumpImg = images[Player.BIKE_JUMP];
+        playerRenderer.updateBikeImages(bikeNormalImg, bikeWheelieImg, bikeJumpImg);
     }
     
-    private void drawGame(Canvas canvas) {
+    private void drawLoadingScreen(Canvas canvas) {
+        canvas.drawColor(Color.BLACK);
+        
+        // Progress bar across the middle of the screen
+        float barLeft = screenWidth / 4f;
+        float barRight = screenWidth * 3 / 4f;
+        float barTop = screenHeight / 2f;
+        loadingPaint.setStyle(Paint.Style.STROKE);
+        canvas.drawRect(barLeft, barTop, barRight, barTop + 30, loadingPaint);
+        loadingPaint.setStyle(Paint.Style.FILL);
+        canvas.drawRect(barLeft, barTop, barLeft + (barRight - barLeft) * loadingProgress, barTop + 30, loadingPaint);
+        
+        canvas.drawText("Loading", barLeft, barTop - 20, textPaint);
+    }
+    
+    private void drawGame(Canvas canvas, GameSnapshot snapshot, float interpolation) {
         if (canvas != null) {
             // Clear the canvas
             canvas.drawColor(Color.BLACK);
             
-            // Draw background
-            canvas.drawBitmap(backgroundImg, 0, 0, null);
+            // Draw the scrolling background, interpolated like the obstacles. Uses the
+            // unwrapped distance since roadY wraps at the screen height, not the tile height
+            background.draw(canvas, snapshot.distance - snapshot.roadScroll * (1 - interpolation));
             
             // Draw finish line if it's visible on screen
-            int finishLineScreenY = finishLineY + distance;
+            int finishLineScreenY = snapshot.finishLineY + snapshot.distance;
             if (-50 <= finishLineScreenY && finishLineScreenY <= screenHeight) {
-                canvas.drawBitmap(finishLineImg, player.getRoadLeftBoundary(), finishLineScreenY, null);
+                canvas.drawBitmap(finishLineImg, snapshot.roadLeftBoundary, finishLineScreenY, null);
             }
             
-            // Draw obstacles
-            for (Obstacle obstacle : obstacles) {
-                obstacle.draw(canvas);
+            // Draw obstacles, interpolated between the last two steps
+            for (int i = 0; i < snapshot.obstacleCount; i++) {
+                // Obstacles only move down the road
+                float obstacleX = snapshot.obstacleX[i];
+                float obstacleY = snapshot.obstaclePrevY[i] + (snapshot.obstacleY[i] - snapshot.obstaclePrevY[i]) * interpolation;
+                spriteAtlas.draw(canvas, obstacleRegions[snapshot.obstacleType[i]], obstacleX, obstacleY, null);
             }
             
             // Draw the player
-            player.draw(canvas);
+            playerRenderer.draw(canvas, snapshot, interpolation);
             
-            // Draw crash effect if active
-            if (showCrashEffect) {
-                canvas.drawBitmap(crashImg, crashEffectX - 30, crashEffectY - 30, null);
-            }
+            // Draw dust, speed lines, stars and crash debris
+            particleRenderer.draw(canvas, snapshot, interpolation);
             
             // Draw score and distance
-            canvas.drawText("Score: " + score, 10, 50, textPaint);
-            canvas.drawText("Distance: " + distance + "m", 10, 100, textPaint);
+            drawHudText(canvas, hudText.clear().append("Score: ").append(snapshot.score), 10, 50, hudFont);
+            drawHudText(canvas, hudText.clear().append("Distance: ").append(snapshot.distance).append('m'), 10, 100, hudFont);
             
             // Debug information
-            canvas.drawText("Bike X: " + player.getX() + ", Width: " + player.getWidth() + ", Right: " + (player.getX() + player.getWidth()), 10, 150, textPaint);
-            canvas.drawText("Road: " + player.getRoadLeftBoundary() + "-" + player.getRoadRightBoundary(), 10, 200, textPaint);
-            canvas.drawText("Direction: " + (touchDirection != null ? touchDirection : "none"), 10, 250, textPaint);
+            int bikeWidth = playerRenderer.getWidth();
+            drawHudText(canvas, hudText.clear().append("Bike X: ").append(snapshot.playerX)
+                    .append(", Width: ").append(bikeWidth)
+                    .append(", Right: ").append(snapshot.playerX + bikeWidth), 10, 150, hudFont);
+            drawHudText(canvas, hudText.clear().append("Road: ").append(snapshot.roadLeftBoundary)
+                    .append('-').append(snapshot.roadRightBoundary), 10, 200, hudFont);
+            drawHudText(canvas, hudText.clear().append("Direction: ")
+                    .append(snapshot.touchDirection != null ? snapshot.touchDirection : "none"), 10, 250, hudFont);
             
             // Draw stunt info
-            if (player.isPerformingStunt()) {
-                String stuntName = player.getStuntType().toUpperCase();
-                Paint stuntPaint = new Paint(textPaint);
-                stuntPaint.setColor(Color.YELLOW);
-                canvas.drawText("PERFORMING: " + stuntName, screenWidth - 300, 50, stuntPaint);
+            if (snapshot.stuntType != null) {
+                drawHudText(canvas, hudText.clear().append("PERFORMING: ").appendUpperCase(snapshot.stuntType),
+                        screenWidth - 300, 50, stuntFont);
             }
             
             // Draw stunt bonus text if active
-            if (stuntBonusTimer > 0) {
-                Paint bonusPaint = new Paint(scorePaint);
-                bonusPaint.setColor(Color.YELLOW);
+            if (snapshot.stuntBonusTimer > 0) {
                 // Make it float up and fade out
-                int yOffset = (int)(20 * (1 - stuntBonusTimer / 60.0f));
-                int alpha = (int)(255 * (stuntBonusTimer / 60.0f));
-                bonusPaint.setAlpha(alpha);
-                canvas.drawText(stuntBonusText, player.getX(), player.getY() - 50 - yOffset, bonusPaint);
+                int yOffset = (int)(20 * (1 - snapshot.stuntBonusTimer / 60.0f));
+                int alpha = (int)(255 * (snapshot.stuntBonusTimer / 60.0f));
+                bonusAlphaPaint.setAlpha(alpha);
+                bonusFont.draw(canvas, hudText.clear().append(snapshot.stuntBonusText),
+                        snapshot.playerX, snapshot.playerY - 50 - yOffset, bonusAlphaPaint);
             }
             
             // Draw touch controls
-            if (!gameOver && !gameWon) {
+            if (!snapshot.gameOver && !snapshot.gameWon) {
                 // Draw virtual joystick
                 joystick.draw(canvas);
                 
@@ -758,95 +1322,268 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                 // Draw reset button
                 resetButton.draw(canvas);
                 
+                // Draw performance overlay toggle
+                statsButton.draw(canvas);
+                
                 // Draw small control hints
-                Paint hintPaint = new Paint(textPaint);
-                hintPaint.setTextSize(18);
-                canvas.drawText("Wheelie", wheelieButton.getX() + wheelieButton.getWidth() / 2 - 30,
-                        wheelieButton.getY() - 10, hintPaint);
-                canvas.drawText("Jump", jumpButton.getX() + jumpButton.getWidth() / 2 - 20,
-                        jumpButton.getY() - 10, hintPaint);
-                canvas.drawText("Reset Position", resetButton.getX() + resetButton.getWidth() / 2 - 50,
-                        resetButton.getY() - 10, hintPaint);
+                drawHudText(canvas, hudText.clear().append("Wheelie"),
+                        wheelieButton.getX() + wheelieButton.getWidth() / 2 - 30, wheelieButton.getY() - 10, hintFont);
+                drawHudText(canvas, hudText.clear().append("Jump"),
+                        jumpButton.getX() + jumpButton.getWidth() / 2 - 20, jumpButton.getY() - 10, hintFont);
+                drawHudText(canvas, hudText.clear().append("Reset Position"),
+                        resetButton.getX() + resetButton.getWidth() / 2 - 50, resetButton.getY() - 10, hintFont);
                 
                 // Draw joystick hint
-                canvas.drawText("Move", joystick.getBaseX(), joystick.getBaseY() - joystick.getBaseRadius() - 10, hintPaint);
+                drawHudText(canvas, hudText.clear().append("Move"),
+                        joystick.getBaseX(), joystick.getBaseY() - joystick.getBaseRadius() - 10, hintFont);
             }
             
             // Draw game over message if game is over
-            if (gameOver) {
-                String gameOverText = "GAME OVER";
-                float textWidth = gameOverPaint.measureText(gameOverText);
-                canvas.drawText(gameOverText, screenWidth / 2 - textWidth / 2, screenHeight / 2, gameOverPaint);
+            if (snapshot.gameOver) {
+                drawCenteredText(canvas, hudText.clear().append("GAME OVER"), screenHeight / 2, gameOverFont);
                 
                 // Show final score
-                String finalScoreText = "Final Score: " + score;
-                float scoreWidth = scorePaint.measureText(finalScoreText);
-                canvas.drawText(finalScoreText, screenWidth / 2 - scoreWidth / 2, screenHeight / 2 + 50, scorePaint);
+                drawCenteredFinalScore(canvas, snapshot.score);
                 
                 // Draw restart button
                 restartButton.draw(canvas);
             }
             
             // Draw win message if player won
-            else if (gameWon) {
-                gameOverPaint.setColor(Color.GREEN);
-                String winText = "YOU WIN!";
-                float textWidth = gameOverPaint.measureText(winText);
-                canvas.drawText(winText, screenWidth / 2 - textWidth / 2, screenHeight / 2, gameOverPaint);
+            else if (snapshot.gameWon) {
+                drawCenteredText(canvas, hudText.clear().append("YOU WIN!"), screenHeight / 2, winFont);
                 
                 // Show final score
-                String finalScoreText = "Final Score: " + score;
-                float scoreWidth = scorePaint.measureText(finalScoreText);
-                canvas.drawText(finalScoreText, screenWidth / 2 - scoreWidth / 2, screenHeight / 2 + 50, scorePaint);
+                drawCenteredFinalScore(canvas, snapshot.score);
                 
                 // Draw restart button
                 restartButton.draw(canvas);
+            }
+            
+            // Draw frame timings on top of everything
+            if (performanceOverlayEnabled) {
+                performanceOverlay.draw(canvas, frameStats, frameScheduler);
+            }
+        }
+    }
+    
+    private void drawHudText(Canvas canvas, TextBuffer text, float x, float y, GlyphAtlas font) {
+        font.draw(canvas, text, x, y, null);
+    }
+    
+    private void drawCenteredText(Canvas canvas, TextBuffer text, float y, GlyphAtlas font) {
+        font.draw(canvas, text, screenWidth / 2 - font.measure(text) / 2, y, null);
+    }
+    
+    private void drawCenteredFinalScore(Canvas canvas, int score) {
+        drawCenteredText(canvas, hudText.clear().append("Final Score: ").append(score), screenHeight / 2 + 50, scoreFont);
+    }
+    
+    // Simulation thread: advances the game in fixed steps and publishes snapshots.
+    // In vsync mode the step clock is driven by vsync timestamps instead of sleeps.
+    // Parks in the lifecycle while the game is paused or has no surface.
+    private class SimulationThread extends Thread {
+        private static final int TARGET_FPS = 60;
+        
+        // Fixed simulation step, kept in nanoseconds so 1/60s isn't truncated to 16ms
+        private static final long STEP_NANOS = 1000000000L / TARGET_FPS;
+        
+        // Cap on catch-up steps per frame so a long stall can't snowball
+        private static final int MAX_STEPS_PER_FRAME = 5;
+        
+        public SimulationThread() {
+            super("SimulationThread");
+        }
+        
+        @Override
+        public void run() {
+            // Nothing to simulate until the assets are in and the engine exists
+            while (!awaitLoaded(100)) {
+                if (lifecycle.getState() == GameLifecycle.STATE_STOPPED) {
+                    return;
+                }
+            }
+            
+            long previousTime = System.nanoTime();
+            long accumulator = 0;
+            
+            // Publish the starting state so the first frame has something to draw
+            publish(previousTime);
+            
+            while (true) {
+                if (!lifecycle.isRunning()) {
+                    // Get the recording onto disk while nothing else is happening
+                    flushRecording();
+                    
+                    if (!lifecycle.awaitRunning()) {
+                        break;
+                    }
+                    
+                    // Time spent parked isn't owed to the simulation
+                    previousTime = System.nanoTime();
+                    accumulator = 0;
+                }
+                
+                FrameScheduler scheduler = frameScheduler;
+                boolean vsync = scheduler.isVsyncMode();
+                long frameStart = vsync ? scheduler.awaitFrame(FrameScheduler.CONSUMER_SIMULATION) : System.nanoTime();
+                
+                // A timed-out wait can return a later time than the next vsync stamp
+                if (frameStart > previousTime) {
+                    accumulator += frameStart - previousTime;
+                    previousTime = frameStart;
+                }
+                
+                // Advance the simulation in fixed steps
+                int steps = 0;
+                while (accumulator >= STEP_NANOS && steps < MAX_STEPS_PER_FRAME) {
+                    long updateStart = System.nanoTime();
+                    update();
+                    frameStats.record(FrameStats.PHASE_UPDATE, System.nanoTime() - updateStart);
+                    accumulator -= STEP_NANOS;
+                    steps++;
+                }
+                
+                // Drop whatever is still owed rather than slowing down the next frames
+                if (accumulator >= STEP_NANOS) {
+                    accumulator %= STEP_NANOS;
+                }
+                
+                // Hand the new state to the render thread
+                if (steps > 0) {
+                    publish(previousTime - accumulator);
+                }
                 
-                // Reset paint color
-                gameOverPaint.setColor(Color.RED);
+                if (vsync) {
+                    continue;
+                }
+                
+                // Sleep until the next simulation step is due
+                long waitTime = (STEP_NANOS - accumulator - (System.nanoTime() - frameStart)) / 1000000;
+                
+                if (waitTime > 0) {
+                    try {
+                        sleep(waitTime);
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
             }
         }
+        
+        private void publish(long simTimeNanos) {
+            GameSnapshot snapshot = snapshots.getBack();
+            writeSnapshot(snapshot);
+            snapshot.simTimeNanos = simTimeNanos;
+            snapshots.publish();
+        }
     }
     
-    // Game thread class
-    private class GameThread extends Thread {
+    // Render thread: draws the latest published snapshot, once per vsync in vsync mode.
+    // Parks in the lifecycle while the game is paused or has no surface.
+    private class RenderThread extends Thread {
         private SurfaceHolder surfaceHolder;
-        private boolean running;
+        private boolean hardwareCanvas;
+        private int surfaceGeneration = -1;
         private static final int TARGET_FPS = 60;
-        private static final long TARGET_TIME = 1000 / TARGET_FPS;
+        private static final long FRAME_NANOS = 1000000000L / TARGET_FPS;
         
-        public GameThread(SurfaceHolder holder) {
+        public RenderThread(SurfaceHolder holder) {
+            super("RenderThread");
             this.surfaceHolder = holder;
         }
         
-        public void setRunning(boolean running) {
-            this.running = running;
-        }
-        
         @Override
         public void run() {
-            long startTime;
-            long timeMillis;
-            long waitTime;
+            long lastFrameStart = 0;
             
-            while (running) {
-                startTime = System.nanoTime();
-                Canvas canvas = null;
+            while (true) {
+                if (!lifecycle.isRunning()) {
+                    if (!lifecycle.awaitRunning()) {
+                        break;
+                    }
+                    
+                    // The gap while parked isn't a janky frame
+                    lastFrameStart = 0;
+                }
                 
-                try {
-                    canvas = surfaceHolder.lockCanvas();
-                    synchronized (surfaceHolder) {
-                        update();
-                        drawGame(canvas);
+                // Pick the canvas path once per surface
+                int generation = lifecycle.getSurfaceGeneration();
+                if (generation != surfaceGeneration) {
+                    surfaceGeneration = generation;
+                    hardwareCanvas = renderMode != RENDER_MODE_SOFTWARE
+                            && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+                    frameStats.setHardwareCanvas(hardwareCanvas);
+                }
+                
+                FrameScheduler scheduler = frameScheduler;
+                boolean vsync = scheduler.isVsyncMode();
+                long frameStart = vsync ? scheduler.awaitFrame(FrameScheduler.CONSUMER_RENDER) : System.nanoTime();
+                
+                // Jank is measured against the real vsync period when we have one
+                frameStats.setFrameBudgetNanos(vsync ? scheduler.getFrameIntervalNanos() : FRAME_NANOS);
+                
+                // Show the loading screen until the simulation has published its first state
+                boolean loading = !snapshots.hasSnapshot();
+                
+                // Claim the surface so surfaceDestroyed waits for this frame
+                if (lifecycle.beginSurfaceUse()) {
+                    Canvas canvas = null;
+                    
+                    try {
+                        long lockStart = System.nanoTime();
+                        canvas = lockCanvas();
+                        frameStats.record(FrameStats.PHASE_LOCK_CANVAS, System.nanoTime() - lockStart);
+                        
+                        // The lock fails while the surface is still being set up; skip the frame
+                        if (canvas != null) {
+                            synchronized (surfaceHolder) {
+                                if (loading) {
+                                    drawLoadingScreen(canvas);
+                                } else {
+                                    // Assets loaded while drawing in software can't stay hardware bitmaps
+                                    if (!hardwareCanvas) {
+                                        useSoftwareAssets();
+                                    }
+                                    
+                                    // A style picked in the settings is swapped in between frames
+                                    applyBikeStyle();
+                                    
+                                    GameSnapshot snapshot = snapshots.acquire();
+                                    
+                                    // Interpolate by how far the frame time has moved past the snapshot's state
+                                    long frameTime = vsync ? frameStart : System.nanoTime();
+                                    float interpolation = (float) (frameTime - snapshot.simTimeNanos) / SimulationThread.STEP_NANOS;
+                                    interpolation = Math.max(0f, Math.min(1f, interpolation));
+                                    
+                                    long drawStart = System.nanoTime();
+                                    allocationCheck.beginFrame();
+                                    drawGame(canvas, snapshot, interpolation);
+                                    allocationCheck.endFrame();
+                                    frameStats.record(FrameStats.PHASE_DRAW, System.nanoTime() - drawStart);
+                                }
+                            }
+                        }
+                    } finally {
+                        if (canvas != null) {
+                            long postStart = System.nanoTime();
+                            unlockCanvasAndPost(canvas);
+                            frameStats.record(FrameStats.PHASE_POST, System.nanoTime() - postStart);
+                        }
+                        lifecycle.endSurfaceUse();
                     }
-                } finally {
-                    if (canvas != null) {
-                        surfaceHolder.unlockCanvasAndPost(canvas);
+                    
+                    if (lastFrameStart != 0) {
+                        frameStats.recordFrame(frameStart - lastFrameStart);
                     }
+                    lastFrameStart = frameStart;
                 }
                 
-                timeMillis = (System.nanoTime() - startTime) / 1000000;
-                waitTime = TARGET_TIME - timeMillis;
+                if (vsync) {
+                    continue;
+                }
+                
+                long waitTime = (FRAME_NANOS - (System.nanoTime() - frameStart)) / 1000000;
                 
                 if (waitTime > 0) {
                     try {
@@ -857,5 +1594,27 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback {
                 }
             }
         }
+        
+        private Canvas lockCanvas() {
+            if (hardwareCanvas && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                try {
+                    return surfaceHolder.getSurface().lockHardwareCanvas();
+                } catch (RuntimeException e) {
+                    // Drop to software for the rest of this surface
+                    Log.e("GameView", "Hardware canvas unavailable, using software: " + e.getMessage());
+                    hardwareCanvas = false;
+                    frameStats.setHardwareCanvas(false);
+                }
+            }
+            return surfaceHolder.lockCanvas();
+        }
+        
+        private void unlockCanvasAndPost(Canvas canvas) {
+            if (hardwareCanvas) {
+                surfaceHolder.getSurface().unlockCanvasAndPost(canvas);
+            } else {
+                surfaceHolder.unlockCanvasAndPost(canvas);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Text pre-rendered in one paint, for HUD text that is redrawn every
+ * frame. Single glyphs (digits and common symbols) and whole fixed labels
+ * ("Score: ") are rasterized once and packed into a {@link SpriteAtlas};
+ * drawing a {@link TextBuffer} then blits them, with no String building
+ * and no text layout per frame.
+ *
+ * Fixed labels found in the text are drawn as one blit; other characters
+ * are drawn glyph by glyph. Characters with no glyph fall back to
+ * Canvas.drawText, so any text still draws, just more slowly.
+ */
+public class GlyphAtlas {
+    // Glyphs every HUD font gets: digits and the symbols numbers are shown with
+    public static final String DIGITS_AND_SYMBOLS = "0123456789 +-.,:%/!m";
+    
+    // Glyphs are looked up by ASCII code
+    private static final int GLYPH_TABLE_SIZE = 128;
+    
+    // Room for anti-aliased edges that spill past a character's advance
+    private static final int EDGE_PADDING = 2;
+    
+    // Paint the text was rasterized with, also used for fallback characters
+    private final Paint paint;
+    
+    // Distance from the baseline to the top of each rasterized glyph (negative)
+    private final float ascent;
+    
+    // Glyph and label images
+    private final SpriteAtlas atlas;
+    
+    // Single glyphs, indexed by character
+    private final int[] glyphRegions = new int[GLYPH_TABLE_SIZE];
+    private final float[] glyphAdvances = new float[GLYPH_TABLE_SIZE];
+    
+    // Fixed labels, longest first so the longest match wins
+    private final char[][] labels;
+    private final int[] labelRegions;
+    private final float[] labelAdvances;
+    
+    /**
+     * Rasterizes the glyphs and labels
+     * @param paint Paint to render with; its size, typeface and colour are baked in
+     * @param glyphs Characters to pre-render one by one (ASCII only)
+     * @param labels Fixed strings to pre-render whole
+     */
+    public GlyphAtlas(Paint paint, String glyphs, String[] labels) {
+        this.paint = new Paint(paint);
+        
+        Paint.FontMetrics metrics = this.paint.getFontMetrics();
+        this.ascent = metrics.ascent;
+        int height = (int) Math.ceil(metrics.descent - metrics.ascent);
+        
+        String[] sortedLabels = labels.clone();
+        Arrays.sort(sortedLabels, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return b.length() - a.length();
+            }
+        });
+        
+        // Rasterize every glyph and label into its own bitmap, then pack them
+        int count = glyphs.length() + sortedLabels.length;
+        String[] names = new String[count];
+        Bitmap[] bitmaps = new Bitmap[count];
+        for (int i = 0; i < glyphs.length(); i++) {
+            names[i] = glyphs.substring(i, i + 1);
+            bitmaps[i] = rasterize(names[i], height);
+        }
+        for (int i = 0; i < sortedLabels.length; i++) {
+            names[glyphs.length() + i] = sortedLabels[i];
+            bitmaps[glyphs.length() + i] = rasterize(sortedLabels[i], height);
+        }
+        
+        atlas = new SpriteAtlas(names, bitmaps, SpriteAtlas.DEFAULT_PAGE_SIZE);
+        for (int i = 0; i < count; i++) {
+            if (atlas.isPacked(i)) {
+                bitmaps[i].recycle();
+            }
+        }
+        
+        Arrays.fill(glyphRegions, SpriteAtlas.NO_REGION);
+        for (int i = 0; i < glyphs.length(); i++) {
+            char c = glyphs.charAt(i);
+            if (c < GLYPH_TABLE_SIZE) {
+                glyphRegions[c] = i;
+                glyphAdvances[c] = this.paint.measureText(names[i]);
+            }
+        }
+        
+        this.labels = new char[sortedLabels.length][];
+        this.labelRegions = new int[sortedLabels.length];
+        this.labelAdvances = new float[sortedLabels.length];
+        for (int i = 0; i < sortedLabels.length; i++) {
+            this.labels[i] = sortedLabels[i].toCharArray();
+            this.labelRegions[i] = glyphs.length() + i;
+            this.labelAdvances[i] = this.paint.measureText(sortedLabels[i]);
+        }
+    }
+    
+    private Bitmap rasterize(String text, int height) {
+        int width = (int) Math.ceil(paint.measureText(text)) + EDGE_PADDING;
+        Bitmap bitmap = Bitmap.createBitmap(Math.max(1, width), Math.max(1, height), Bitmap.Config.ARGB_8888);
+        new Canvas(bitmap).drawText(text, 0, -ascent, paint);
+        return bitmap;
+    }
+    
+    /**
+     * Draws text with its baseline at y, as Canvas.drawText would
+     * @param canvas Canvas to draw on
+     * @param text Text to draw
+     * @param x Left edge
+     * @param y Baseline
+     * @param alphaPaint Paint whose alpha fades the text, may be null
+     * @return x just past the last character drawn
+     */
+    public float draw(Canvas canvas, TextBuffer text, float x, float y, Paint alphaPaint) {
+        char[] chars = text.getChars();
+        int length = text.length();
+        float top = y + ascent;
+        
+        int i = 0;
+        while (i < length) {
+            // Whole label
+            int label = findLabel(chars, i, length);
+            if (label >= 0) {
+                atlas.draw(canvas, labelRegions[label], x, top, alphaPaint);
+                x += labelAdvances[label];
+                i += labels[label].length;
+                continue;
+            }
+            
+            // Single glyph, or shaped text for characters that weren't pre-rendered
+            char c = chars[i];
+            if (c < GLYPH_TABLE_SIZE && glyphRegions[c] != SpriteAtlas.NO_REGION) {
+                if (c != ' ') {
+                    atlas.draw(canvas, glyphRegions[c], x, top, alphaPaint);
+                }
+                x += glyphAdvances[c];
+            } else {
+                if (alphaPaint != null) {
+                    paint.setAlpha(alphaPaint.getAlpha());
+                }
+                canvas.drawText(chars, i, 1, x, y, paint);
+                paint.setAlpha(255);
+                x += paint.measureText(chars, i, 1);
+            }
+            i++;
+        }
+        return x;
+    }
+    
+    /**
+     * Get the width text would take up when drawn
+     * @param text Text to measure
+     * @return Width in pixels
+     */
+    public float measure(TextBuffer text) {
+        char[] chars = text.getChars();
+        int length = text.length();
+        float width = 0;
+        
+        int i = 0;
+        while (i < length) {
+            int label = findLabel(chars, i, length);
+            if (label >= 0) {
+                width += labelAdvances[label];
+                i += labels[label].length;
+                continue;
+            }
+            
+            char c = chars[i];
+            if (c < GLYPH_TABLE_SIZE && glyphRegions[c] != SpriteAtlas.NO_REGION) {
+                width += glyphAdvances[c];
+            } else {
+                width += paint.measureText(chars, i, 1);
+            }
+            i++;
+        }
+        return width;
+    }
+    
+    private int findLabel(char[] chars, int start, int length) {
+        for (int label = 0; label < labels.length; label++) {
+            char[] candidate = labels[label];
+            if (candidate.length > length - start || candidate[0] != chars[start]) {
+                continue;
+            }
+            
+            int j = 1;
+            while (j < candidate.length && candidate[j] == chars[start + j]) {
+                j++;
+            }
+            if (j == candidate.length) {
+                return label;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Get the atlas the text is drawn from, e.g. to track or convert its pages
+     * @return Glyph atlas
+     */
+    public SpriteAtlas getAtlas() {
+        return atlas;
+    }
+    
+    public void recycle() {
+        atlas.recycle();
+    }
+}
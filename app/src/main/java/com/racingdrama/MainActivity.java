@@ -5,14 +5,21 @@ import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.FrameLayout;
 
+import java.io.File;
+
 public class MainActivity extends Activity {
     
+    // Intent extras naming a recording file for performance runs
+    public static final String EXTRA_RECORD = "record";
+    public static final String EXTRA_REPLAY = "replay";
+    
     // Game view
     private GameView gameView;
     private Button settingsButton;
@@ -45,15 +52,16 @@ public class MainActivity extends Activity {
         FrameLayout gameContainer = findViewById(R.id.game_container);
         gameContainer.addView(gameView);
         
+        // Record or replay a run when started with a file name, e.g.
+        // adb shell am start -n com.racingdrama/.MainActivity --es record run.rdr
+        startRecordingOrReplay();
+        
         // Set up settings button
         settingsButton = findViewById(R.id.settings_button);
         settingsButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                // Pause the game
-                gameView.surfaceDestroyed(gameView.getHolder());
-                
-                // Launch settings activity
+                // Launch settings activity (onPause parks the game while it's open)
                 Intent settingsIntent = new Intent(MainActivity.this, SettingsActivity.class);
                 startActivity(settingsIntent);
             }
@@ -65,16 +73,55 @@ public class MainActivity extends Activity {
         super.onPause();
         // Pause game when activity is paused
         if (gameView != null) {
-            gameView.surfaceDestroyed(gameView.getHolder());
+            gameView.pause();
         }
     }
     
     @Override
     protected void onResume() {
         super.onResume();
-        // Resume game when activity is resumed
-        if (gameView != null && gameView.getHolder().getSurface().isValid()) {
-            gameView.surfaceCreated(gameView.getHolder());
+        // Resume game when activity is resumed; it runs once the surface exists too
+        if (gameView != null) {
+            gameView.resume();
+        }
+    }
+    
+    private void startRecordingOrReplay() {
+        // Debug builds only: this activity is exported, so any app could send these extras
+        if (!BuildConfig.DEBUG) {
+            return;
+        }
+        
+        // App-specific external storage, so recordings can be pulled with adb
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        
+        String recordName = getIntent().getStringExtra(EXTRA_RECORD);
+        String replayName = getIntent().getStringExtra(EXTRA_REPLAY);
+        if (recordName != null) {
+            if (isPlainFileName(recordName)) {
+                gameView.startRecording(new File(directory, recordName));
+            }
+        } else if (replayName != null) {
+            if (isPlainFileName(replayName)) {
+                gameView.startReplay(new File(directory, replayName));
+            }
+        }
+    }
+    
+    /**
+     * Checks that a recording name stays inside the recordings directory
+     * @param name File name from an intent extra
+     * @return true if the name has no path separators and isn't . or ..
+     */
+    private static boolean isPlainFileName(String name) {
+        if (name.isEmpty() || name.contains("/") || name.contains(File.separator)
+                || name.contains("..") || name.equals(".")) {
+            Log.w("MainActivity", "Ignoring recording name " + name);
+            return false;
         }
+        return true;
     }
 }
\ No newline at end of file
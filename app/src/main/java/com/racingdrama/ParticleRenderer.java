@@ -0,0 +1,111 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import com.racingdrama.engine.ParticleSystem;
+
+/**
+ * Draws the particles in a {@link GameSnapshot}, each as an atlas sprite
+ * centred on its position and faded out over its life.
+ */
+public class ParticleRenderer {
+    // Atlas names of the generated particle sprites, indexed by ParticleSystem.SPRITE_ id
+    public static final String[] SPRITE_NAMES = {
+        "particle_dust", "particle_speed_line", "particle_star", "particle_debris", "crash"
+    };
+    
+    // Sprites the renderer generates itself; the crash sprite is a regular game image
+    private static final int GENERATED_SPRITES = ParticleSystem.SPRITE_CRASH;
+    
+    private final SpriteAtlas atlas;
+    
+    // Atlas regions and half sizes, indexed by sprite id
+    private final int[] regions = new int[ParticleSystem.SPRITE_COUNT];
+    private final float[] halfWidths = new float[ParticleSystem.SPRITE_COUNT];
+    private final float[] halfHeights = new float[ParticleSystem.SPRITE_COUNT];
+    
+    // Fades each particle (render thread only)
+    private final Paint paint = new Paint();
+    
+    /**
+     * Constructor
+     * @param atlas Atlas holding every sprite in SPRITE_NAMES
+     */
+    public ParticleRenderer(SpriteAtlas atlas) {
+        this.atlas = atlas;
+        for (int spriteId = 0; spriteId < ParticleSystem.SPRITE_COUNT; spriteId++) {
+            regions[spriteId] = atlas.findRegion(SPRITE_NAMES[spriteId]);
+            halfWidths[spriteId] = atlas.getWidth(regions[spriteId]) / 2f;
+            halfHeights[spriteId] = atlas.getHeight(regions[spriteId]) / 2f;
+        }
+    }
+    
+    /**
+     * Draws every particle, interpolated between the last two steps
+     * @param canvas Canvas to draw on
+     * @param snapshot Snapshot to draw
+     * @param interpolation Fraction of a step elapsed since the snapshot's state (0..1)
+     */
+    public void draw(Canvas canvas, GameSnapshot snapshot, float interpolation) {
+        float[] x = snapshot.particleX;
+        float[] y = snapshot.particleY;
+        float[] prevX = snapshot.particlePrevX;
+        float[] prevY = snapshot.particlePrevY;
+        
+        for (int i = 0; i < snapshot.particleCount; i++) {
+            int spriteId = snapshot.particleSprite[i];
+            float drawX = prevX[i] + (x[i] - prevX[i]) * interpolation;
+            float drawY = prevY[i] + (y[i] - prevY[i]) * interpolation;
+            
+            paint.setAlpha(snapshot.particleAlpha[i]);
+            atlas.draw(canvas, regions[spriteId], drawX - halfWidths[spriteId], drawY - halfHeights[spriteId], paint);
+        }
+    }
+    
+    /**
+     * Rasterizes the small particle sprites, to be packed into the atlas
+     * alongside the crash image
+     * @return Sprites named by the first entries of SPRITE_NAMES, in order
+     */
+    public static Bitmap[] createSprites() {
+        Bitmap[] sprites = new Bitmap[GENERATED_SPRITES];
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        
+        // Soft grey puff
+        sprites[ParticleSystem.SPRITE_DUST] = Bitmap.createBitmap(24, 24, Bitmap.Config.ARGB_8888);
+        paint.setColor(Color.argb(160, 190, 170, 140));
+        new Canvas(sprites[ParticleSystem.SPRITE_DUST]).drawCircle(12, 12, 11, paint);
+        
+        // Thin vertical streak
+        sprites[ParticleSystem.SPRITE_SPEED_LINE] = Bitmap.createBitmap(4, 40, Bitmap.Config.ARGB_8888);
+        paint.setColor(Color.argb(200, 255, 255, 255));
+        new Canvas(sprites[ParticleSystem.SPRITE_SPEED_LINE]).drawRoundRect(0, 0, 4, 40, 2, 2, paint);
+        
+        // Four-pointed yellow star
+        sprites[ParticleSystem.SPRITE_STAR] = Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888);
+        Path star = new Path();
+        star.moveTo(10, 0);
+        star.lineTo(13, 7);
+        star.lineTo(20, 10);
+        star.lineTo(13, 13);
+        star.lineTo(10, 20);
+        star.lineTo(7, 13);
+        star.lineTo(0, 10);
+        star.lineTo(7, 7);
+        star.close();
+        paint.setColor(Color.YELLOW);
+        new Canvas(sprites[ParticleSystem.SPRITE_STAR]).drawPath(star, paint);
+        
+        // Dark chunk of bodywork
+        sprites[ParticleSystem.SPRITE_DEBRIS] = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+        paint.setColor(Color.DKGRAY);
+        new Canvas(sprites[ParticleSystem.SPRITE_DEBRIS]).drawRect(1, 1, 7, 7, paint);
+        
+        return sprites;
+    }
+}
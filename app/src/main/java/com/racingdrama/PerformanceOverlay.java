@@ -0,0 +1,101 @@
+package com.racingdrama;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * Draws frame timing percentiles and jank counts on top of the game.
+ * Text is formatted into preallocated char buffers and only refreshed
+ * every few frames, so drawing the overlay never allocates.
+ */
+public class PerformanceOverlay {
+
+    // Frames between text refreshes (percentiles need a sort per phase)
+    private static final int REFRESH_FRAMES = 30;
+    
+    private static final int LINE_LENGTH = 64;
+    private static final int LINE_HEIGHT = 26;
+    private static final int SUMMARY_LINE = FrameStats.PHASE_COUNT;
+    private static final int LINE_COUNT = FrameStats.PHASE_COUNT + 1;
+    
+    // Formatted text, one buffer per line
+    private final TextBuffer[] lines = new TextBuffer[LINE_COUNT];
+    
+    private final Paint textPaint;
+    private final Paint backgroundPaint;
+    
+    // Overlay position
+    private final int x;
+    private final int y;
+    private final int width;
+    
+    private int framesUntilRefresh = 0;
+    
+    /**
+     * Constructor
+     * @param x Left edge of the overlay
+     * @param y Top edge of the overlay
+     */
+    public PerformanceOverlay(int x, int y) {
+        this.x = x;
+        this.y = y;
+        this.width = 520;
+        
+        for (int i = 0; i < LINE_COUNT; i++) {
+            lines[i] = new TextBuffer(LINE_LENGTH);
+        }
+        
+        textPaint = new Paint();
+        textPaint.setColor(Color.GREEN);
+        textPaint.setTextSize(22);
+        textPaint.setTypeface(Typeface.MONOSPACE);
+        textPaint.setAntiAlias(true);
+        
+        backgroundPaint = new Paint();
+        backgroundPaint.setColor(Color.argb(160, 0, 0, 0));
+        backgroundPaint.setStyle(Paint.Style.FILL);
+    }
+    
+    /**
+     * Draws the overlay, refreshing its text from the stats when due
+     * @param canvas Canvas to draw on
+     * @param stats Frame timing statistics
+     * @param scheduler Frame scheduler for refresh rate and missed vsyncs
+     */
+    public void draw(Canvas canvas, FrameStats stats, FrameScheduler scheduler) {
+        if (framesUntilRefresh <= 0) {
+            refresh(stats, scheduler);
+            framesUntilRefresh = REFRESH_FRAMES;
+        }
+        framesUntilRefresh--;
+        
+        canvas.drawRect(x, y, x + width, y + LINE_COUNT * LINE_HEIGHT + 10, backgroundPaint);
+        
+        for (int i = 0; i < LINE_COUNT; i++) {
+            canvas.drawText(lines[i].getChars(), 0, lines[i].length(), x + 8, y + (i + 1) * LINE_HEIGHT, textPaint);
+        }
+    }
+    
+    private void refresh(FrameStats stats, FrameScheduler scheduler) {
+        for (int phase = 0; phase < FrameStats.PHASE_COUNT; phase++) {
+            lines[phase].clear()
+                    .appendPadded(FrameStats.getPhaseName(phase), 7)
+                    .append("p50 ").appendMillis(stats.getPercentileNanos(phase, 50))
+                    .append("  p95 ").appendMillis(stats.getPercentileNanos(phase, 95))
+                    .append("  p99 ").appendMillis(stats.getPercentileNanos(phase, 99))
+                    .append(" ms");
+        }
+        
+        TextBuffer line = lines[SUMMARY_LINE];
+        line.clear().append(stats.isHardwareCanvas() ? "HW  jank " : "SW  jank ").append(stats.getJankCount());
+        if (scheduler != null) {
+            // Missed vsyncs as render/simulation
+            line.append("  missed ").append(scheduler.getMissedVsyncCount(FrameScheduler.CONSUMER_RENDER))
+                    .append('/').append(scheduler.getMissedVsyncCount(FrameScheduler.CONSUMER_SIMULATION))
+                    .append("  ").append(scheduler.getRefreshRate())
+                    .append(scheduler.isVsyncMode() ? "Hz vsync" : "Hz sleep");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Process;
+import android.util.Log;
+
+import com.racingdrama.engine.Player;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws the bike from a {@link GameSnapshot}. Holds the bike's sprite
+ * atlas and drawing objects; the bike's state lives in the engine's
+ * {@link Player}. Effects around the bike are particles, drawn by
+ * {@link ParticleRenderer}.
+ */
+public class PlayerRenderer {
+    private static final String TAG = "PlayerRenderer";
+    
+    // Bike sprite names, indexed by Player.BIKE_ state
+    private static final String[] BIKE_SPRITES = {"bike_normal", "bike_wheelie", "bike_jump"};
+    
+    // Bike sprites for different states, on their own atlas since they change with the style
+    private SpriteAtlas bikeAtlas;
+    private final int[] bikeRegions = new int[BIKE_SPRITES.length];
+    
+    // Dimensions of the bike sprite
+    private int width;
+    private int height;
+    
+    // The normal bike pre-rotated at a few lean angles, built in the background; wheelies
+    // and jumps are brief, so they keep the rotated draw rather than tripling the cache
+    private final float maxLeanAngle;
+    private final AssetPolicy assetPolicy;
+    private final Object rotationLock = new Object();
+    private int rotationGeneration;
+    private volatile RotatedSpriteCache rotations;
+    
+    // One background builder; a newer style replaces a build still waiting to start
+    private final ThreadPoolExecutor rotationExecutor;
+    
+    // Paint for drawing with transformations
+    private Paint bikePaint;
+    private Matrix transformMatrix;
+    
+    /**
+     * Constructor
+     * @param normalImage Normal bike image
+     * @param wheelieImage Wheelie bike image
+     * @param jumpImage Jump bike image
+     * @param maxLeanAngle Largest lean angle the bike reaches, in degrees
+     * @param assetPolicy Asset policy the pre-rotated sprites are created and counted with
+     */
+    public PlayerRenderer(Bitmap normalImage, Bitmap wheelieImage, Bitmap jumpImage, float maxLeanAngle,
+                          AssetPolicy assetPolicy) {
+        this.maxLeanAngle = maxLeanAngle;
+        this.assetPolicy = assetPolicy;
+        
+        rotationExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(1), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "BikeRotationCache");
+            }
+        }, new ThreadPoolExecutor.DiscardOldestPolicy());
+        
+        // Initialize drawing objects
+        this.bikePaint = new Paint();
+        this.transformMatrix = new Matrix();
+        
+        // Enable filtering for smoother rotation
+        this.bikePaint.setFilterBitmap(true);
+        this.bikePaint.setAntiAlias(true);
+        
+        updateBikeImages(normalImage, wheelieImage, jumpImage);
+    }
+    
+    /**
+     * Draws the bike from a published snapshot, interpolated between the
+     * previous and current simulation step. Safe to call from the render thread.
+     * @param snapshot Snapshot to draw
+     * @param interpolation Fraction of a step elapsed since the snapshot's state (0..1)
+     */
+    public void draw(Canvas canvas, GameSnapshot snapshot, float interpolation) {
+        // Blend the last two simulation positions so motion stays smooth between steps
+        float drawX = snapshot.playerPrevX + (snapshot.playerX - snapshot.playerPrevX) * interpolation;
+        float drawY = snapshot.playerPrevY + (snapshot.playerY - snapshot.playerPrevY) * interpolation;
+        float suspensionOffset = snapshot.suspensionOffset;
+        
+        // Save the current canvas state
+        canvas.save();
+        
+        // Draw the normal bike as a plain blit from the pre-rotated sprites
+        RotatedSpriteCache cache = rotations;
+        if (snapshot.bikeState != Player.BIKE_NORMAL || cache == null
+                || !cache.draw(canvas, 0, snapshot.leanAngle, drawX, drawY + suspensionOffset, null)) {
+            // Stunt sprite, rotations not built (or didn't fit the budget), or angle out of range: rotate while drawing
+            transformMatrix.reset();
+            
+            // Calculate the center point of the bike for rotation
+            float pivotX = width / 2.0f;
+            float pivotY = height / 2.0f;
+            
+            // Apply rotation for leaning effect
+            transformMatrix.postRotate(snapshot.leanAngle, pivotX, pivotY);
+            
+            // Apply translation for position and suspension effect
+            transformMatrix.postTranslate(drawX, drawY + suspensionOffset);
+            
+            // Regions are indexed by bike state
+            bikeAtlas.draw(canvas, bikeRegions[snapshot.bikeState], transformMatrix, bikePaint);
+        }
+        
+        // Restore the canvas state
+        canvas.restore();
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Updates the bike images with new style, repacking them into a new
+     * bike atlas and rebuilding the pre-rotated sprites in the background.
+     * Must not run while the render thread is drawing.
+     * @param normalImage New normal bike image
+     * @param wheelieImage New wheelie bike image
+     * @param jumpImage New jump bike image
+     */
+    public void updateBikeImages(Bitmap normalImage, Bitmap wheelieImage, Bitmap jumpImage) {
+        SpriteAtlas previous = bikeAtlas;
+        
+        // Indexed by Player.BIKE_ state
+        Bitmap[] images = new Bitmap[BIKE_SPRITES.length];
+        images[Player.BIKE_NORMAL] = normalImage;
+        images[Player.BIKE_WHEELIE] = wheelieImage;
+        images[Player.BIKE_JUMP] = jumpImage;
+        
+        bikeAtlas = new SpriteAtlas(BIKE_SPRITES, images, SpriteAtlas.DEFAULT_PAGE_SIZE);
+        for (int state = 0; state < BIKE_SPRITES.length; state++) {
+            bikeRegions[state] = bikeAtlas.findRegion(BIKE_SPRITES[state]);
+        }
+        width = bikeAtlas.getWidth(bikeRegions[Player.BIKE_NORMAL]);
+        height = bikeAtlas.getHeight(bikeRegions[Player.BIKE_NORMAL]);
+        
+        if (previous != null) {
+            previous.recycle();
+        }
+        
+        rebuildRotations(images);
+    }
+    
+    private void rebuildRotations(final Bitmap[] images) {
+        final int generation;
+        synchronized (rotationLock) {
+            generation = ++rotationGeneration;
+            
+            // Drop the old style's rotations; the render thread isn't drawing while this runs
+            if (rotations != null) {
+                rotations.recycle();
+                rotations = null;
+            }
+        }
+        
+        rotationExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Skip styles already replaced while this build waited
+                synchronized (rotationLock) {
+                    if (generation != rotationGeneration) {
+                        return;
+                    }
+                }
+                
+                RotatedSpriteCache cache;
+                try {
+                    cache = new RotatedSpriteCache(new Bitmap[]{images[Player.BIKE_NORMAL]}, maxLeanAngle, assetPolicy);
+                } catch (IllegalStateException | OutOfMemoryError e) {
+                    // Keep drawing with rotation rather than taking the game down
+                    Log.e(TAG, "No room for the pre-rotated bike, rotating while drawing: " + e.getMessage());
+                    return;
+                }
+                
+                synchronized (rotationLock) {
+                    if (generation == rotationGeneration) {
+                        rotations = cache;
+                        return;
+                    }
+                }
+                
+                // The style changed again while this one was building
+                cache.recycle();
+            }
+        });
+    }
+    
+    /**
+     * Stops the rotation builder and frees the bike sprites. Call once
+     * nothing draws with this renderer any more.
+     */
+    public void recycle() {
+        rotationExecutor.shutdownNow();
+        
+        synchronized (rotationLock) {
+            // A build still running sees the new generation and frees its own output
+            rotationGeneration++;
+            if (rotations != null) {
+                rotations.recycle();
+                rotations = null;
+            }
+        }
+        bikeAtlas.recycle();
+    }
+}
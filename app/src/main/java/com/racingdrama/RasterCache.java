@@ -0,0 +1,302 @@
+package com.racingdrama;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Disk cache of rasterized vector drawables, so a cold start can skip
+ * parsing and drawing the vector XML. Entries are raw pixel buffers in the
+ * app's cache directory, read back with a memory-mapped buffer straight
+ * into Bitmap.copyPixelsFromBuffer.
+ *
+ * An entry is keyed by resource name, style, screen size, density and
+ * app build, so a different device configuration or a new install never
+ * reads a stale image. Entries are written to a temporary file and
+ * renamed into place, and any entry that doesn't match its header is
+ * deleted and treated as a miss. Safe to use from several threads at once.
+ *
+ * The build also ships pre-rasterized copies of the vector sprites as
+ * assets, one directory per density bucket, in the same format (see
+ * VectorRasterizer in buildSrc). {@link #getBase} falls back to those
+ * on a cache miss, so even the very first start doesn't parse vectors.
+ */
+public class RasterCache {
+    private static final String TAG = "RasterCache";
+    
+    // Style for assets that don't have style variants
+    public static final String NO_STYLE = "default";
+    
+    // Entry header: magic, format version, width, height, config, pixel byte count, then the
+    // drawable's size in dp (0 for cache entries). Little-endian, like every Android ABI.
+    private static final int MAGIC = 0x52445243; // "RDRC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    
+    // Pixel formats in the header
+    private static final int CONFIG_ARGB_8888 = 0;
+    private static final int CONFIG_RGB_565 = 1;
+    
+    private static final String ENTRY_SUFFIX = ".raster";
+    
+    // Pre-rasterized assets: raster/<bucket>/<name>.raster
+    private static final String ASSET_DIRECTORY = "raster";
+    private static final String[] ASSET_BUCKETS = {"mdpi", "hdpi", "xhdpi", "xxhdpi", "xxxhdpi"};
+    private static final int[] ASSET_BUCKET_DPI = {160, 240, 320, 480, 640};
+    
+    private final File directory;
+    private final AssetManager assets;
+    
+    // Device density, for picking and scaling pre-rasterized assets
+    private final int densityDpi;
+    private final float density;
+    
+    // Part of every entry name: the configuration and build the pixels belong to
+    private final String configurationKey;
+    
+    /**
+     * Constructor. Does no disk I/O, so it is safe on the UI thread.
+     * @param context Context for the cache directory, density and app version
+     * @param screenWidth Screen width the assets are rasterized for
+     * @param screenHeight Screen height the assets are rasterized for
+     */
+    public RasterCache(Context context, int screenWidth, int screenHeight) {
+        this.directory = new File(context.getCacheDir(), "raster");
+        this.assets = context.getAssets();
+        this.densityDpi = context.getResources().getDisplayMetrics().densityDpi;
+        this.density = context.getResources().getDisplayMetrics().density;
+        this.configurationKey = screenWidth + "x" + screenHeight + "_" + densityDpi + "dpi_" + getBuildStamp(context);
+    }
+    
+    // Version code plus install time, so a rebuilt debug APK with the same version still invalidates
+    @SuppressWarnings("deprecation")
+    private static String getBuildStamp(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            long versionCode = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P ? info.getLongVersionCode() : info.versionCode;
+            return "v" + versionCode + "_" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "v0";
+        }
+    }
+    
+    /**
+     * Reads a cached raster
+     * @param name Resource name
+     * @param style Style variant, or NO_STYLE
+     * @param policy Asset policy to create the bitmap through
+     * @return Mutable bitmap with the cached pixels, or null on a miss
+     */
+    public Bitmap get(String name, String style, AssetPolicy policy) {
+        File file = fileFor(name, style);
+        if (!file.exists()) {
+            return null;
+        }
+        
+        try (FileInputStream input = new FileInputStream(file);
+             FileChannel channel = input.getChannel()) {
+            ByteBuffer header = readHeader(channel);
+            if (channel.size() != HEADER_BYTES + (long) header.getInt(20)) {
+                throw new IOException("Header doesn't match entry");
+            }
+            
+            Bitmap bitmap = createBitmap(header, policy);
+            MappedByteBuffer pixels = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, bitmap.getByteCount());
+            bitmap.copyPixelsFromBuffer(pixels);
+            return bitmap;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping cache entry " + file.getName() + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+    
+    /**
+     * Reads an unstyled raster from the disk cache, or failing that from the
+     * pre-rasterized asset for the closest density bucket. An asset from a
+     * different bucket is scaled to this device's size and cached, so the
+     * next start reads it directly.
+     * @param name Resource name
+     * @param policy Asset policy to create the bitmap through
+     * @return Mutable bitmap, or null if neither has the raster
+     */
+    public Bitmap getBase(String name, AssetPolicy policy) {
+        Bitmap cached = get(name, NO_STYLE, policy);
+        if (cached != null) {
+            return cached;
+        }
+        
+        int bucket = closestBucket();
+        String path = ASSET_DIRECTORY + "/" + ASSET_BUCKETS[bucket] + "/" + name + ENTRY_SUFFIX;
+        Bitmap bitmap = null;
+        try (InputStream input = assets.open(path);
+             ReadableByteChannel channel = Channels.newChannel(input)) {
+            ByteBuffer header = readHeader(channel);
+            float widthDp = header.getFloat(24);
+            float heightDp = header.getFloat(28);
+            
+            bitmap = createBitmap(header, policy);
+            ByteBuffer pixels = ByteBuffer.allocateDirect(bitmap.getByteCount());
+            while (pixels.hasRemaining()) {
+                if (channel.read(pixels) < 0) {
+                    throw new IOException("Truncated pixels");
+                }
+            }
+            pixels.flip();
+            bitmap.copyPixelsFromBuffer(pixels);
+            
+            // Same size VectorDrawableCompat would rasterize at on this device
+            int width = (int) (widthDp * density);
+            int height = (int) (heightDp * density);
+            if (ASSET_BUCKET_DPI[bucket] == densityDpi || width <= 0 || height <= 0
+                    || (width == bitmap.getWidth() && height == bitmap.getHeight())) {
+                return bitmap;
+            }
+            
+            Bitmap scaled = policy.createBitmap(width, height, !bitmap.hasAlpha());
+            Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            new Canvas(scaled).drawBitmap(bitmap, null, new Rect(0, 0, width, height), paint);
+            policy.release(bitmap);
+            put(name, NO_STYLE, scaled);
+            return scaled;
+        } catch (IOException e) {
+            // Not built into this APK (or unreadable): rasterize the vector instead
+            Log.d(TAG, "No pre-rasterized " + path + ": " + e.getMessage());
+            policy.release(bitmap);
+            return null;
+        }
+    }
+    
+    // Smallest bucket at or above the device density, so assets are only ever scaled down
+    private int closestBucket() {
+        for (int i = 0; i < ASSET_BUCKET_DPI.length; i++) {
+            if (ASSET_BUCKET_DPI[i] >= densityDpi) {
+                return i;
+            }
+        }
+        return ASSET_BUCKET_DPI.length - 1;
+    }
+    
+    private static ByteBuffer readHeader(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                throw new IOException("Truncated header");
+            }
+        }
+        header.flip();
+        
+        if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION
+                || header.getInt(8) <= 0 || header.getInt(12) <= 0) {
+            throw new IOException("Bad header");
+        }
+        return header;
+    }
+    
+    // Creates the bitmap a header describes, checking its pixel size matches the entry's
+    private static Bitmap createBitmap(ByteBuffer header, AssetPolicy policy) throws IOException {
+        boolean opaque = header.getInt(16) == CONFIG_RGB_565;
+        Bitmap bitmap = policy.createBitmap(header.getInt(8), header.getInt(12), opaque);
+        if (bitmap.getByteCount() != header.getInt(20)) {
+            // Written with a different row layout
+            policy.release(bitmap);
+            throw new IOException("Pixel size doesn't match entry");
+        }
+        return bitmap;
+    }
+    
+    /**
+     * Stores a raster. Failures are logged and otherwise ignored.
+     * @param name Resource name
+     * @param style Style variant, or NO_STYLE
+     * @param bitmap ARGB_8888 or RGB_565 bitmap to store
+     */
+    public void put(String name, String style, Bitmap bitmap) {
+        int config;
+        if (bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+            config = CONFIG_ARGB_8888;
+        } else if (bitmap.getConfig() == Bitmap.Config.RGB_565) {
+            config = CONFIG_RGB_565;
+        } else {
+            return;
+        }
+        
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        
+        File file = fileFor(name, style);
+        File temp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        int byteCount = bitmap.getByteCount();
+        
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + byteCount).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(bitmap.getWidth());
+        buffer.putInt(bitmap.getHeight());
+        buffer.putInt(config);
+        buffer.putInt(byteCount);
+        buffer.putFloat(0);
+        buffer.putFloat(0);
+        bitmap.copyPixelsToBuffer(buffer);
+        buffer.flip();
+        
+        try (FileOutputStream output = new FileOutputStream(temp);
+             FileChannel channel = output.getChannel()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write cache entry " + file.getName() + ": " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        
+        // Readers only ever see a complete entry
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+    
+    /**
+     * Deletes entries left by other builds or configurations, and
+     * temporary files from interrupted writes
+     */
+    public void prune() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        String currentSuffix = "_" + configurationKey + ENTRY_SUFFIX;
+        for (File file : files) {
+            if (!file.getName().endsWith(currentSuffix)) {
+                file.delete();
+            }
+        }
+    }
+    
+    private File fileFor(String name, String style) {
+        return new File(directory, name + "_" + style + "_" + configurationKey + ENTRY_SUFFIX);
+    }
+}
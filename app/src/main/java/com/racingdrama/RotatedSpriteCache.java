@@ -0,0 +1,126 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Sprites pre-rotated at a few lean angles, so a leaning sprite can be
+ * drawn as a plain translated blit instead of a filtered, rotated one.
+ * Each rotation is drawn straight into a {@link SpriteAtlas} page created
+ * through the {@link AssetPolicy}, so the cache counts against the asset
+ * budget and never holds a second copy of anything.
+ *
+ * Every cached sprite is a full-size ARGB_8888 image, so keep the number
+ * of images and angles small. Building one rasterizes every angle for
+ * every image, so do it off the render thread.
+ */
+public class RotatedSpriteCache {
+    // Angle between cached rotations in degrees; divides the bike's 20 degree lean so the end angles are exact
+    public static final float ANGLE_STEP = 4f;
+    
+    private final AssetPolicy assetPolicy;
+    private final int imageCount;
+    private final int angleCount;
+    private final int maxSteps;
+    
+    // Rotated sprites, region index = image * angleCount + angle step
+    private final SpriteAtlas atlas;
+    
+    // Offset from the unrotated sprite's top-left to the rotated one's, per image and step
+    private final float[] offsetX;
+    private final float[] offsetY;
+    
+    /**
+     * Rasterizes every image at every step from -maxAngle to +maxAngle
+     * @param images Source sprites; read only, not recycled
+     * @param maxAngle Largest lean angle to cache, in degrees
+     * @param assetPolicy Asset policy to create the pages with
+     * @throws IllegalStateException if the rotations would not fit in the asset budget
+     */
+    public RotatedSpriteCache(Bitmap[] images, float maxAngle, AssetPolicy assetPolicy) {
+        this.assetPolicy = assetPolicy;
+        this.imageCount = images.length;
+        this.maxSteps = (int) Math.ceil(maxAngle / ANGLE_STEP);
+        this.angleCount = maxSteps * 2 + 1;
+        
+        int count = imageCount * angleCount;
+        String[] names = new String[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        offsetX = new float[count];
+        offsetY = new float[count];
+        
+        for (int image = 0; image < imageCount; image++) {
+            float width = images[image].getWidth();
+            float height = images[image].getHeight();
+            
+            for (int step = 0; step < angleCount; step++) {
+                int index = image * angleCount + step;
+                double radians = Math.toRadians((step - maxSteps) * ANGLE_STEP);
+                float cos = (float) Math.abs(Math.cos(radians));
+                float sin = (float) Math.abs(Math.sin(radians));
+                
+                // Bounding box of the rotated sprite
+                widths[index] = (int) Math.ceil(width * cos + height * sin);
+                heights[index] = (int) Math.ceil(width * sin + height * cos);
+                
+                names[index] = Integer.toString(index);
+                offsetX[index] = (width - widths[index]) / 2;
+                offsetY[index] = (height - heights[index]) / 2;
+            }
+        }
+        
+        atlas = new SpriteAtlas(names, widths, heights, SpriteAtlas.DEFAULT_PAGE_SIZE, assetPolicy);
+        
+        // Same filtering the rotated draw used, paid once here instead of every frame
+        Paint paint = new Paint();
+        paint.setFilterBitmap(true);
+        paint.setAntiAlias(true);
+        
+        for (int image = 0; image < imageCount; image++) {
+            Bitmap source = images[image];
+            
+            for (int step = 0; step < angleCount; step++) {
+                int index = image * angleCount + step;
+                Rect bounds = atlas.getBounds(index);
+                
+                // Rotate about the center of the sprite's region, clipped so nothing spills into a neighbour
+                Canvas canvas = new Canvas(atlas.getPage(index));
+                canvas.clipRect(bounds);
+                canvas.translate(bounds.exactCenterX(), bounds.exactCenterY());
+                canvas.rotate((step - maxSteps) * ANGLE_STEP);
+                canvas.drawBitmap(source, -source.getWidth() / 2f, -source.getHeight() / 2f, paint);
+            }
+        }
+    }
+    
+    /**
+     * Draws a sprite rotated about its center, snapped to the nearest cached angle
+     * @param canvas Canvas to draw on
+     * @param image Index of the source image
+     * @param angle Rotation in degrees
+     * @param x Left edge of the unrotated sprite
+     * @param y Top edge of the unrotated sprite
+     * @param paint Paint to draw with, may be null
+     * @return false if the angle is outside the cached range and nothing was drawn
+     */
+    public boolean draw(Canvas canvas, int image, float angle, float x, float y, Paint paint) {
+        int step = Math.round(angle / ANGLE_STEP) + maxSteps;
+        if (step < 0 || step >= angleCount || image >= imageCount) {
+            return false;
+        }
+        
+        int index = image * angleCount + step;
+        atlas.draw(canvas, index, x + offsetX[index], y + offsetY[index], paint);
+        return true;
+    }
+    
+    /**
+     * Frees the cached sprites and returns their memory to the asset budget
+     */
+    public void recycle() {
+        atlas.release(assetPolicy);
+    }
+}
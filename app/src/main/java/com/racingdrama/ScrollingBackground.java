@@ -0,0 +1,200 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.Random;
+
+/**
+ * Vertically scrolling background made of small repeating tiles. Each
+ * layer is one tile the width of the screen, blitted down the screen with
+ * a wrap-around offset, and can scroll at its own rate for parallax.
+ *
+ * Opaque layers are created through {@link AssetPolicy} as RGB_565, so a
+ * layer costs a fraction of a full-screen ARGB_8888 image in both memory
+ * and fill bandwidth.
+ */
+public class ScrollingBackground {
+    private static final int MAX_LAYERS = 4;
+    
+    // Road markings repeat every dash period
+    private static final int DASH_LENGTH = 60;
+    private static final int DASH_PERIOD = 120;
+    
+    // Colors matching the original background drawable
+    private static final int GROUND_COLOR = Color.rgb(0x8B, 0x45, 0x13);
+    private static final int ROAD_COLOR = Color.rgb(0x55, 0x55, 0x55);
+    
+    private final int screenHeight;
+    
+    // Layers, drawn back to front
+    private final Bitmap[] tiles = new Bitmap[MAX_LAYERS];
+    private final float[] scrollFactors = new float[MAX_LAYERS];
+    private final boolean[] visible = new boolean[MAX_LAYERS];
+    private int layerCount;
+    
+    public ScrollingBackground(int screenHeight) {
+        this.screenHeight = screenHeight;
+    }
+    
+    /**
+     * Adds a layer on top of the existing ones
+     * @param tile Tile repeated down the screen; the background owns it from now on
+     * @param scrollFactor Scroll rate relative to the road (1 moves with the road)
+     * @return Layer index
+     */
+    public int addLayer(Bitmap tile, float scrollFactor) {
+        if (layerCount == MAX_LAYERS) {
+            throw new IllegalStateException("Too many background layers");
+        }
+        tiles[layerCount] = tile;
+        scrollFactors[layerCount] = scrollFactor;
+        visible[layerCount] = true;
+        return layerCount++;
+    }
+    
+    public void setLayerVisible(int layer, boolean visible) {
+        this.visible[layer] = visible;
+    }
+    
+    /**
+     * Draws every visible layer
+     * @param canvas Canvas to draw on
+     * @param scroll How far the road has scrolled, in pixels
+     */
+    public void draw(Canvas canvas, float scroll) {
+        for (int layer = 0; layer < layerCount; layer++) {
+            if (!visible[layer]) {
+                continue;
+            }
+            
+            Bitmap tile = tiles[layer];
+            int tileHeight = tile.getHeight();
+            
+            // Content moves down the screen, so the first tile starts at or above the top
+            float offset = (scroll * scrollFactors[layer]) % tileHeight;
+            if (offset < 0) {
+                offset += tileHeight;
+            }
+            
+            for (float y = offset - tileHeight; y < screenHeight; y += tileHeight) {
+                canvas.drawBitmap(tile, 0, y, null);
+            }
+        }
+    }
+    
+    /**
+     * Get the memory held by the layer tiles
+     * @return Size in bytes
+     */
+    public long getByteCount() {
+        long bytes = 0;
+        for (int layer = 0; layer < layerCount; layer++) {
+            bytes += tiles[layer].getAllocationByteCount();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Moves the tiles to HARDWARE bitmaps where the policy allows.
+     * Must not run while another thread is drawing the background.
+     * @param policy Asset policy the tiles were created through
+     */
+    public void toStatic(AssetPolicy policy) {
+        for (int layer = 0; layer < layerCount; layer++) {
+            tiles[layer] = policy.toStatic(tiles[layer]);
+        }
+    }
+    
+    /**
+     * Moves hardware tiles back into the heap so a software canvas can draw them.
+     * Must not run while another thread is drawing the background.
+     * @param policy Asset policy the tiles were created through
+     */
+    public void toSoftware(AssetPolicy policy) {
+        for (int layer = 0; layer < layerCount; layer++) {
+            tiles[layer] = policy.toSoftware(tiles[layer]);
+        }
+    }
+    
+    public void recycle() {
+        for (int layer = 0; layer < layerCount; layer++) {
+            tiles[layer].recycle();
+            tiles[layer] = null;
+        }
+        layerCount = 0;
+    }
+    
+    /**
+     * Rasterizes an opaque road tile: ground on both sides, edge lines and
+     * a dashed centre line that repeats seamlessly
+     * @param policy Asset policy to create the tile through
+     * @param width Tile width, normally the screen width
+     * @param roadLeft Left edge of the road
+     * @param roadRight Right edge of the road
+     * @return RGB_565 tile, two dash periods tall
+     */
+    public static Bitmap createRoadTile(AssetPolicy policy, int width, int roadLeft, int roadRight) {
+        int height = DASH_PERIOD * 2;
+        Bitmap tile = policy.createBitmap(width, height, true);
+        Canvas canvas = new Canvas(tile);
+        Paint paint = new Paint();
+        
+        canvas.drawColor(GROUND_COLOR);
+        
+        // Speckles so the ground visibly moves; fixed seed keeps the tile identical every run
+        Random random = new Random(1);
+        paint.setColor(Color.rgb(0x6E, 0x36, 0x0F));
+        for (int i = 0; i < 40; i++) {
+            float x = random.nextInt(width);
+            float y = random.nextInt(height - 8);
+            canvas.drawRect(x, y, x + 6, y + 8, paint);
+        }
+        
+        paint.setColor(ROAD_COLOR);
+        canvas.drawRect(roadLeft, 0, roadRight, height, paint);
+        
+        // Edge lines
+        paint.setColor(Color.WHITE);
+        canvas.drawRect(roadLeft, 0, roadLeft + 8, height, paint);
+        canvas.drawRect(roadRight - 8, 0, roadRight, height, paint);
+        
+        // Centre dashes
+        float centerX = (roadLeft + roadRight) / 2f;
+        for (int y = 0; y < height; y += DASH_PERIOD) {
+            canvas.drawRect(centerX - 5, y, centerX + 5, y + DASH_LENGTH, paint);
+        }
+        
+        return tile;
+    }
+    
+    /**
+     * Rasterizes a translucent cloud layer to scroll over the road for parallax
+     * @param policy Asset policy to create the tile through
+     * @param width Tile width, normally the screen width
+     * @param height Tile height; the clouds repeat at this interval
+     * @return ARGB_8888 tile
+     */
+    public static Bitmap createCloudTile(AssetPolicy policy, int width, int height) {
+        Bitmap tile = policy.createBitmap(width, height, false);
+        Canvas canvas = new Canvas(tile);
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setColor(Color.argb(40, 255, 255, 255));
+        
+        Random random = new Random(2);
+        for (int i = 0; i < 3; i++) {
+            float x = random.nextInt(Math.max(1, width - 300));
+            float y = 100 + random.nextInt(Math.max(1, height - 200));
+            
+            // A few overlapping ovals per cloud, kept inside the tile so it wraps cleanly
+            canvas.drawOval(x, y - 40, x + 220, y + 40, paint);
+            canvas.drawOval(x + 60, y - 70, x + 200, y + 20, paint);
+            canvas.drawOval(x + 120, y - 30, x + 300, y + 50, paint);
+        }
+        
+        return tile;
+    }
+}
@@ -0,0 +1,69 @@
+package com.racingdrama;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free triple buffer for handing {@link GameSnapshot}s from the
+ * simulation thread to the render thread.
+ *
+ * The writer always fills its own back snapshot and swaps it into the
+ * shared slot; the reader swaps the shared slot for its front snapshot
+ * when something newer has been published. Each snapshot is owned by
+ * exactly one side at a time, so neither thread ever blocks the other.
+ */
+public class SnapshotBuffer {
+    
+    // Most recently published snapshot
+    private final AtomicReference<GameSnapshot> ready;
+    
+    // Owned by the simulation thread
+    private GameSnapshot back;
+    
+    // Owned by the render thread
+    private GameSnapshot front;
+    
+    private long nextSequence = 1;
+    
+    public SnapshotBuffer() {
+        ready = new AtomicReference<>(new GameSnapshot());
+        back = new GameSnapshot();
+        front = new GameSnapshot();
+    }
+    
+    /**
+     * Get the snapshot the simulation thread should write into next
+     * @return Writable snapshot
+     */
+    public GameSnapshot getBack() {
+        return back;
+    }
+    
+    /**
+     * Publish the back snapshot and take a spare one to write into next.
+     * Only call from the simulation thread.
+     */
+    public void publish() {
+        back.sequence = nextSequence++;
+        back = ready.getAndSet(back);
+    }
+    
+    /**
+     * Get the newest published snapshot. Only call from the render thread;
+     * the returned snapshot stays valid until the next call.
+     * @return Latest snapshot
+     */
+    public GameSnapshot acquire() {
+        if (ready.get().sequence > front.sequence) {
+            front = ready.getAndSet(front);
+        }
+        return front;
+    }
+    
+    /**
+     * Check whether a snapshot has ever been published
+     * @return true once the simulation has produced a state to draw
+     */
+    public boolean hasSnapshot() {
+        return ready.get().sequence > 0 || front.sequence > 0;
+    }
+}
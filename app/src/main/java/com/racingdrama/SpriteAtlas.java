@@ -0,0 +1,293 @@
+package com.racingdrama;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Sprites packed into a few shared bitmaps ("pages") so drawing them
+ * touches far fewer textures. Sprites are looked up by name once, then
+ * drawn by region index from their sub-rectangle of a page.
+ *
+ * Sprites too big for a page keep their own bitmap but are looked up and
+ * drawn through the same API.
+ */
+public class SpriteAtlas {
+    public static final int NO_REGION = -1;
+    
+    // Default page size; 2048 fits every GPU the app supports
+    public static final int DEFAULT_PAGE_SIZE = 2048;
+    
+    // Gap between sprites so filtered, rotated draws don't pick up neighbours
+    private static final int PADDING = 2;
+    
+    // Regions, indexed by region index
+    private final String[] names;
+    private final Bitmap[] regionPages;
+    private final Rect[] regionBounds;
+    private final boolean[] packed;
+    
+    // Shared pages, recycled with the atlas
+    private final Bitmap[] pages;
+    
+    // Reused destination rectangle (drawing thread only)
+    private final RectF drawRect = new RectF();
+    
+    /**
+     * Packs sprites into pages. Packed sprites are copied, so their source
+     * bitmaps can be recycled afterwards (see {@link #isPacked(int)}).
+     * @param names Sprite names, used for lookup
+     * @param bitmaps Sprite bitmaps, in the same order as the names
+     * @param pageSize Page width and height in pixels
+     */
+    public SpriteAtlas(String[] names, Bitmap[] bitmaps, int pageSize) {
+        int count = names.length;
+        this.names = names.clone();
+        this.regionPages = new Bitmap[count];
+        this.regionBounds = new Rect[count];
+        this.packed = new boolean[count];
+        
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = bitmaps[i].getWidth();
+            heights[i] = bitmaps[i].getHeight();
+        }
+        
+        AtlasPacker packer = new AtlasPacker(pageSize, pageSize, PADDING);
+        int pageCount = packer.pack(widths, heights);
+        
+        // Size each page to what was used so a mostly empty page doesn't waste memory
+        pages = new Bitmap[pageCount];
+        Canvas[] canvases = new Canvas[pageCount];
+        for (int page = 0; page < pageCount; page++) {
+            pages[page] = Bitmap.createBitmap(packer.getUsedWidth(page), packer.getUsedHeight(page), Bitmap.Config.ARGB_8888);
+            canvases[page] = new Canvas(pages[page]);
+        }
+        
+        for (int i = 0; i < count; i++) {
+            int page = packer.getPage(i);
+            if (page < 0) {
+                // Too big to pack: drawn from its own bitmap
+                regionPages[i] = bitmaps[i];
+                regionBounds[i] = new Rect(0, 0, widths[i], heights[i]);
+                continue;
+            }
+            
+            int x = packer.getX(i);
+            int y = packer.getY(i);
+            canvases[page].drawBitmap(bitmaps[i], x, y, null);
+            regionPages[i] = pages[page];
+            regionBounds[i] = new Rect(x, y, x + widths[i], y + heights[i]);
+            packed[i] = true;
+        }
+    }
+    
+    /**
+     * Lays out blank sprites for the caller to draw straight into (see
+     * {@link #getPage(int)} and {@link #getBounds(int)}), so no separate
+     * copy of each sprite is ever held. Every bitmap, including those of
+     * sprites too big for a page, is created through the policy and freed
+     * with {@link #release(AssetPolicy)}.
+     * @param names Sprite names, used for lookup
+     * @param widths Sprite widths, in the same order as the names
+     * @param heights Sprite heights, in the same order as the names
+     * @param pageSize Page width and height in pixels
+     * @param policy Asset policy to create the bitmaps with
+     * @throws IllegalStateException if the bitmaps would not fit in the policy's budget
+     */
+    public SpriteAtlas(String[] names, int[] widths, int[] heights, int pageSize, AssetPolicy policy) {
+        int count = names.length;
+        this.names = names.clone();
+        this.regionPages = new Bitmap[count];
+        this.regionBounds = new Rect[count];
+        this.packed = new boolean[count];
+        
+        AtlasPacker packer = new AtlasPacker(pageSize, pageSize, PADDING);
+        pages = new Bitmap[packer.pack(widths, heights)];
+        
+        try {
+            for (int page = 0; page < pages.length; page++) {
+                pages[page] = policy.createBitmap(packer.getUsedWidth(page), packer.getUsedHeight(page), false);
+            }
+            
+            for (int i = 0; i < count; i++) {
+                int page = packer.getPage(i);
+                if (page < 0) {
+                    // Too big to pack: its own bitmap, still owned by the atlas
+                    regionPages[i] = policy.createBitmap(widths[i], heights[i], false);
+                    regionBounds[i] = new Rect(0, 0, widths[i], heights[i]);
+                    continue;
+                }
+                
+                int x = packer.getX(i);
+                int y = packer.getY(i);
+                regionPages[i] = pages[page];
+                regionBounds[i] = new Rect(x, y, x + widths[i], y + heights[i]);
+                packed[i] = true;
+            }
+        } catch (IllegalStateException | OutOfMemoryError e) {
+            // Give back whatever was created before the budget or the heap ran out
+            release(policy);
+            throw e;
+        }
+    }
+    
+    /**
+     * Look up a sprite by name. Do this once at load time, not per frame.
+     * @param name Sprite name
+     * @return Region index, or NO_REGION if there is no such sprite
+     */
+    public int findRegion(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return NO_REGION;
+    }
+    
+    /**
+     * Draws a sprite with its top-left corner at a position
+     * @param canvas Canvas to draw on
+     * @param region Region index from findRegion
+     * @param x Left edge
+     * @param y Top edge
+     * @param paint Paint to draw with, may be null
+     */
+    public void draw(Canvas canvas, int region, float x, float y, Paint paint) {
+        Rect bounds = regionBounds[region];
+        drawRect.set(x, y, x + bounds.width(), y + bounds.height());
+        canvas.drawBitmap(regionPages[region], bounds, drawRect, paint);
+    }
+    
+    /**
+     * Draws a sprite transformed by a matrix, as Canvas.drawBitmap(Bitmap, Matrix, Paint) would
+     * @param canvas Canvas to draw on
+     * @param region Region index from findRegion
+     * @param matrix Transform from sprite space to canvas space
+     * @param paint Paint to draw with, may be null
+     */
+    public void draw(Canvas canvas, int region, Matrix matrix, Paint paint) {
+        Rect bounds = regionBounds[region];
+        drawRect.set(0, 0, bounds.width(), bounds.height());
+        
+        canvas.save();
+        canvas.concat(matrix);
+        canvas.drawBitmap(regionPages[region], bounds, drawRect, paint);
+        canvas.restore();
+    }
+    
+    public int getWidth(int region) {
+        return regionBounds[region].width();
+    }
+    
+    public int getHeight(int region) {
+        return regionBounds[region].height();
+    }
+    
+    /**
+     * Get the sub-rectangle of the page a sprite occupies
+     * @param region Region index from findRegion
+     * @return Bounds within the page (do not modify)
+     */
+    public Rect getBounds(int region) {
+        return regionBounds[region];
+    }
+    
+    /**
+     * Get the bitmap a sprite is drawn from
+     * @param region Region index from findRegion
+     * @return Page bitmap, or the sprite's own bitmap if it was too big to pack
+     */
+    public Bitmap getPage(int region) {
+        return regionPages[region];
+    }
+    
+    /**
+     * Check whether a sprite was copied onto a shared page
+     * @param region Region index from findRegion
+     * @return true if packed, false if it is still drawn from the caller's bitmap
+     */
+    public boolean isPacked(int region) {
+        return packed[region];
+    }
+    
+    public int getPageCount() {
+        return pages.length;
+    }
+    
+    /**
+     * Counts the shared pages against an asset budget
+     * @param policy Asset policy to track the pages with
+     */
+    public void trackPages(AssetPolicy policy) {
+        for (Bitmap page : pages) {
+            policy.track(page);
+        }
+    }
+    
+    /**
+     * Moves the shared pages to HARDWARE bitmaps where the policy allows.
+     * Must not run while another thread is drawing from the atlas.
+     * @param policy Asset policy the pages are tracked by
+     */
+    public void toStatic(AssetPolicy policy) {
+        for (int page = 0; page < pages.length; page++) {
+            replacePage(page, policy.toStatic(pages[page]));
+        }
+    }
+    
+    /**
+     * Moves hardware pages back into the heap so a software canvas can draw them.
+     * Must not run while another thread is drawing from the atlas.
+     * @param policy Asset policy the pages are tracked by
+     */
+    public void toSoftware(AssetPolicy policy) {
+        for (int page = 0; page < pages.length; page++) {
+            replacePage(page, policy.toSoftware(pages[page]));
+        }
+    }
+    
+    private void replacePage(int page, Bitmap replacement) {
+        Bitmap previous = pages[page];
+        if (replacement == previous) {
+            return;
+        }
+        
+        pages[page] = replacement;
+        for (int i = 0; i < regionPages.length; i++) {
+            if (regionPages[i] == previous) {
+                regionPages[i] = replacement;
+            }
+        }
+    }
+    
+    /**
+     * Frees an atlas built with {@link #SpriteAtlas(String[], int[], int[], int, AssetPolicy)},
+     * including its unpacked sprites, and returns the memory to the budget
+     * @param policy Asset policy the bitmaps were created with
+     */
+    public void release(AssetPolicy policy) {
+        for (Bitmap page : pages) {
+            policy.release(page);
+        }
+        for (int i = 0; i < regionPages.length; i++) {
+            if (!packed[i]) {
+                policy.release(regionPages[i]);
+            }
+        }
+    }
+    
+    /**
+     * Frees the shared pages. Unpacked sprites belong to the caller and are left alone.
+     */
+    public void recycle() {
+        for (Bitmap page : pages) {
+            page.recycle();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.racingdrama;
+
+/**
+ * Reusable character buffer for text that changes every frame, such as
+ * the score. Numbers are formatted straight into the buffer and drawn
+ * with Canvas.drawText(char[], ...), so no Strings are built per frame.
+ * Text past the capacity is dropped.
+ */
+public class TextBuffer {
+    private final char[] chars;
+    private int length;
+    
+    /**
+     * Constructor
+     * @param capacity Maximum number of characters
+     */
+    public TextBuffer(int capacity) {
+        this.chars = new char[capacity];
+    }
+    
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+    
+    public TextBuffer append(String text) {
+        int count = Math.min(text.length(), chars.length - length);
+        text.getChars(0, count, chars, length);
+        length += count;
+        return this;
+    }
+    
+    public TextBuffer append(char c) {
+        if (length < chars.length) {
+            chars[length++] = c;
+        }
+        return this;
+    }
+    
+    /**
+     * Append ASCII text in upper case without going through String.toUpperCase
+     * @param text Text to append
+     */
+    public TextBuffer appendUpperCase(String text) {
+        int count = Math.min(text.length(), chars.length - length);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            chars[length++] = c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+        }
+        return this;
+    }
+    
+    /**
+     * Append text and pad it with spaces to a fixed width
+     * @param text Text to append
+     * @param width Minimum number of characters to take up
+     */
+    public TextBuffer appendPadded(String text, int width) {
+        int end = length + width;
+        append(text);
+        while (length < end && length < chars.length) {
+            chars[length++] = ' ';
+        }
+        return this;
+    }
+    
+    /**
+     * Append a whole number in decimal
+     * @param value Number to append
+     */
+    public TextBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            // Can't be negated; never shown in practice
+            return append("-9223372036854775808");
+        }
+        
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        
+        // Count digits so they can be written left to right
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        if (length + digits > chars.length) {
+            return this;
+        }
+        
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+    
+    /**
+     * Append a duration as milliseconds with two decimals
+     * @param nanos Duration in nanoseconds
+     */
+    public TextBuffer appendMillis(long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        append(hundredths / 100);
+        if (length + 3 > chars.length) {
+            return this;
+        }
+        chars[length++] = '.';
+        chars[length++] = (char) ('0' + (hundredths / 10) % 10);
+        chars[length++] = (char) ('0' + hundredths % 10);
+        return this;
+    }
+    
+    /**
+     * Get the backing array; only the first {@link #length()} characters are text
+     * @return Character array
+     */
+    public char[] getChars() {
+        return chars;
+    }
+    
+    public int length() {
+        return length;
+    }
+    
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -17,6 +17,12 @@ public class TouchButton {
     private boolean pressed;
     private Rect rect;
     
+    // Paints, created once so drawing doesn't allocate
+    private final Paint buttonPaint;
+    private final Paint borderPaint;
+    private final Paint textPaint;
+    private final float textY;
+    
     public TouchButton(int x, int y, int width, int height, String text, int color, int textColor) {
         this.x = x;
         this.y = y;
@@ -27,20 +33,11 @@ public class TouchButton {
         this.textColor = textColor;
         this.pressed = false;
         this.rect = new Rect(x, y, x + width, y + height);
-    }
-    
-    public void draw(Canvas canvas) {
-        // Create paint objects
-        Paint buttonPaint = new Paint();
-        Paint borderPaint = new Paint();
-        Paint textPaint = new Paint();
         
-        // Set button paint properties
-        buttonPaint.setColor(color);
-        if (pressed) {
-            // Make button darker when pressed
-            buttonPaint.setAlpha(200);
-        }
+        // Create paint objects
+        buttonPaint = new Paint();
+        borderPaint = new Paint();
+        textPaint = new Paint();
         
         // Set border paint properties
         borderPaint.setColor(Color.WHITE);
@@ -64,6 +61,18 @@ public class TouchButton {
         textPaint.setTypeface(Typeface.DEFAULT_BOLD);
         textPaint.setTextAlign(Paint.Align.CENTER);
         
+        // Vertically center the text
+        textY = y + height / 2f - ((textPaint.descent() + textPaint.ascent()) / 2);
+    }
+    
+    public void draw(Canvas canvas) {
+        // Set button paint properties
+        buttonPaint.setColor(color);
+        if (pressed) {
+            // Make button darker when pressed
+            buttonPaint.setAlpha(200);
+        }
+        
         // Draw button background
         canvas.drawRect(rect, buttonPaint);
         
@@ -72,7 +81,6 @@ public class TouchButton {
         
         // Draw button text
         float textX = x + width / 2f;
-        float textY = y + height / 2f - ((textPaint.descent() + textPaint.ascent()) / 2);
         canvas.drawText(text, textX, textY, textPaint);
     }
     
@@ -4,30 +4,27 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 
+import com.racingdrama.engine.Joystick;
+
 public class VirtualJoystick {
+    // Stick position math
+    private Joystick joystick;
+    
     // Base position (center of the joystick base)
     private int baseX;
     private int baseY;
     private int baseRadius;
     
-    // Stick position (center of the movable stick)
-    private float stickX;
-    private float stickY;
+    // Stick radius
     private int stickRadius;
     
-    // Colors
-    private int baseColor;
-    private int stickColor;
+    // Paints, created once so drawing doesn't allocate
+    private final Paint basePaint;
+    private final Paint stickPaint;
+    private final Paint borderPaint;
     
     // Joystick state
     private boolean isActive;
-    private float deltaX;
-    private float deltaY;
-    private float distance;
-    private float angle;
-    
-    // Movement threshold (minimum distance to register movement)
-    private float movementThreshold;
     
     // Multi-touch support
     private int activePointerId = -1;
@@ -38,37 +35,20 @@ public class VirtualJoystick {
         this.baseRadius = baseRadius;
         
         // Initialize stick at the center of the base
-        this.stickX = baseX;
-        this.stickY = baseY;
+        this.joystick = new Joystick(baseX, baseY, baseRadius);
         this.stickRadius = baseRadius / 2;
         
-        // Set default colors
-        this.baseColor = Color.argb(100, 100, 100, 100);
-        this.stickColor = Color.argb(180, 200, 200, 200);
-        
-        // Initialize state
-        this.isActive = false;
-        this.deltaX = 0;
-        this.deltaY = 0;
-        this.distance = 0;
-        this.angle = 0;
-        
-        // Set movement threshold (10% of base radius)
-        this.movementThreshold = baseRadius * 0.1f;
-    }
-    
-    public void draw(Canvas canvas) {
         // Create paint objects
-        Paint basePaint = new Paint();
-        Paint stickPaint = new Paint();
-        Paint borderPaint = new Paint();
+        basePaint = new Paint();
+        stickPaint = new Paint();
+        borderPaint = new Paint();
         
-        // Set paint properties
-        basePaint.setColor(baseColor);
+        // Set paint properties with the default colors
+        basePaint.setColor(Color.argb(100, 100, 100, 100));
         basePaint.setStyle(Paint.Style.FILL);
         basePaint.setAntiAlias(true);
         
-        stickPaint.setColor(stickColor);
+        stickPaint.setColor(Color.argb(180, 200, 200, 200));
         stickPaint.setStyle(Paint.Style.FILL);
         stickPaint.setAntiAlias(true);
         
@@ -78,11 +58,18 @@ public class VirtualJoystick {
         borderPaint.setStrokeWidth(2);
         borderPaint.setAntiAlias(true);
         
+        // Initialize state
+        this.isActive = false;
+    }
+    
+    public void draw(Canvas canvas) {
         // Draw joystick base
         canvas.drawCircle(baseX, baseY, baseRadius, basePaint);
         canvas.drawCircle(baseX, baseY, baseRadius, borderPaint);
         
         // Draw joystick stick
+        float stickX = joystick.getStickX();
+        float stickY = joystick.getStickY();
         canvas.drawCircle(stickX, stickY, stickRadius, stickPaint);
         canvas.drawCircle(stickX, stickY, stickRadius, borderPaint);
     }
@@ -102,18 +89,18 @@ public class VirtualJoystick {
             case android.view.MotionEvent.ACTION_DOWN:
             case android.view.MotionEvent.ACTION_POINTER_DOWN:
                 // Check if touch is within the base circle
-                float touchDistance = distance(baseX, baseY, touchX, touchY);
+                float touchDistance = joystick.distanceFromBase(touchX, touchY);
                 if (touchDistance <= baseRadius) {
                     isActive = true;
                     activePointerId = pointerId;
-                    updateStickPosition(touchX, touchY);
+                    joystick.updateStickPosition(touchX, touchY);
                     return true;
                 }
                 return false;
                 
             case android.view.MotionEvent.ACTION_MOVE:
                 if (isActive && (activePointerId == pointerId || activePointerId == -1)) {
-                    updateStickPosition(touchX, touchY);
+                    joystick.updateStickPosition(touchX, touchY);
                     return true;
                 }
                 return false;
@@ -124,7 +111,7 @@ public class VirtualJoystick {
                 if (isActive && (activePointerId == pointerId || activePointerId == -1)) {
                     isActive = false;
                     activePointerId = -1;
-                    resetStick();
+                    joystick.resetStick();
                     return true;
                 }
                 return false;
@@ -134,62 +121,19 @@ public class VirtualJoystick {
         }
     }
     
-    private void updateStickPosition(float touchX, float touchY) {
-        // Calculate distance from base center to touch point
-        distance = distance(baseX, baseY, touchX, touchY);
-        
-        // Calculate angle
-        angle = angle(baseX, baseY, touchX, touchY);
-        
-        // If touch is outside the base radius, limit the stick position to the base perimeter
-        if (distance > baseRadius) {
-            // Calculate stick position on the perimeter
-            stickX = baseX + (float) (Math.cos(angle) * baseRadius);
-            stickY = baseY + (float) (Math.sin(angle) * baseRadius);
-        } else {
-            // Set stick position to touch position
-            stickX = touchX;
-            stickY = touchY;
-        }
-        
-        // Calculate delta values (normalized from -1 to 1)
-        deltaX = (stickX - baseX) / baseRadius;
-        deltaY = (stickY - baseY) / baseRadius;
-    }
-    
-    private void resetStick() {
-        // Reset stick to center
-        stickX = baseX;
-        stickY = baseY;
-        
-        // Reset state
-        deltaX = 0;
-        deltaY = 0;
-        distance = 0;
-        angle = 0;
-    }
-    
-    private float distance(float x1, float y1, float x2, float y2) {
-        return (float) Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
-    }
-    
-    private float angle(float x1, float y1, float x2, float y2) {
-        return (float) Math.atan2(y2 - y1, x2 - x1);
-    }
-    
     // Returns true if joystick is active and moved beyond threshold
     public boolean isMoving() {
-        return isActive && distance > movementThreshold;
+        return isActive && joystick.isPastThreshold();
     }
     
     // Get horizontal movement (-1 to 1)
     public float getHorizontalMovement() {
-        return deltaX;
+        return joystick.getDeltaX();
     }
     
     // Get vertical movement (-1 to 1)
     public float getVerticalMovement() {
-        return deltaY;
+        return joystick.getDeltaY();
     }
     
     // Get the primary direction as a string (for compatibility with existing code)
@@ -198,14 +142,7 @@ public class VirtualJoystick {
             return null;
         }
         
-        // Determine the primary direction based on the angle
-        if (Math.abs(deltaX) > Math.abs(deltaY)) {
-            // Horizontal movement is stronger
-            return deltaX > 0 ? "right" : "left";
-        } else {
-            // Vertical movement is stronger
-            return deltaY > 0 ? "down" : "up";
-        }
+        return joystick.getDirection();
     }
     
     // Check if the joystick is currently active
@@ -229,10 +166,10 @@ public class VirtualJoystick {
     
     // Set colors
     public void setBaseColor(int baseColor) {
-        this.baseColor = baseColor;
+        basePaint.setColor(baseColor);
     }
     
     public void setStickColor(int stickColor) {
-        this.stickColor = stickColor;
+        stickPaint.setColor(stickColor);
     }
 }
\ No newline at end of file
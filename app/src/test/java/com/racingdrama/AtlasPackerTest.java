@@ -0,0 +1,47 @@
+package com.racingdrama;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the sprite atlas layout.
+ */
+public class AtlasPackerTest {
+    @Test
+    public void packedRectangles_stayOnPageWithoutOverlapping() {
+        int[] widths = {100, 50, 60, 40, 200, 150, 200, 200, 120, 120, 120};
+        int[] heights = {60, 50, 30, 60, 120, 100, 200, 120, 80, 80, 80};
+        AtlasPacker packer = new AtlasPacker(512, 512, 2);
+        
+        int pageCount = packer.pack(widths, heights);
+        
+        assertEquals(1, pageCount);
+        for (int i = 0; i < widths.length; i++) {
+            assertEquals(0, packer.getPage(i));
+            assertTrue(packer.getX(i) >= 2 && packer.getX(i) + widths[i] <= packer.getUsedWidth(0));
+            assertTrue(packer.getY(i) >= 2 && packer.getY(i) + heights[i] <= packer.getUsedHeight(0));
+            
+            // Padding included, no two rectangles may touch
+            for (int j = 0; j < i; j++) {
+                boolean apart = packer.getX(i) + widths[i] + 2 <= packer.getX(j) - 2
+                        || packer.getX(j) + widths[j] + 2 <= packer.getX(i) - 2
+                        || packer.getY(i) + heights[i] + 2 <= packer.getY(j) - 2
+                        || packer.getY(j) + heights[j] + 2 <= packer.getY(i) - 2;
+                assertTrue("rectangles " + i + " and " + j + " overlap", apart);
+            }
+        }
+    }
+    
+    @Test
+    public void overflow_opensNewPageAndOversizedIsSkipped() {
+        int[] widths = {200, 200, 200, 600};
+        int[] heights = {200, 200, 200, 10};
+        AtlasPacker packer = new AtlasPacker(256, 256, 0);
+        
+        int pageCount = packer.pack(widths, heights);
+        
+        assertEquals(3, pageCount);
+        assertEquals(-1, packer.getPage(3));
+        assertEquals(200, packer.getUsedHeight(2));
+    }
+}
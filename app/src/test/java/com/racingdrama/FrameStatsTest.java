@@ -0,0 +1,54 @@
+package com.racingdrama;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the frame timing ring buffers.
+ */
+public class FrameStatsTest {
+    @Test
+    public void percentiles_useNearestRank() {
+        FrameStats stats = new FrameStats();
+        for (int i = 1; i <= 100; i++) {
+            stats.record(FrameStats.PHASE_DRAW, i * 1000L);
+        }
+        
+        assertEquals(50000L, stats.getPercentileNanos(FrameStats.PHASE_DRAW, 50));
+        assertEquals(95000L, stats.getPercentileNanos(FrameStats.PHASE_DRAW, 95));
+        assertEquals(99000L, stats.getPercentileNanos(FrameStats.PHASE_DRAW, 99));
+        assertEquals(100000L, stats.getLatestNanos(FrameStats.PHASE_DRAW));
+    }
+    
+    @Test
+    public void ringBuffer_keepsOnlyTheLatestWindow() {
+        FrameStats stats = new FrameStats();
+        for (int i = 0; i < FrameStats.CAPACITY; i++) {
+            stats.record(FrameStats.PHASE_UPDATE, 1000000L);
+        }
+        for (int i = 0; i < FrameStats.CAPACITY; i++) {
+            stats.record(FrameStats.PHASE_UPDATE, 10L);
+        }
+        
+        assertEquals(FrameStats.CAPACITY, stats.getWindowSize(FrameStats.PHASE_UPDATE));
+        assertEquals(2L * FrameStats.CAPACITY, stats.getSampleCount(FrameStats.PHASE_UPDATE));
+        assertEquals(10L, stats.getPercentileNanos(FrameStats.PHASE_UPDATE, 99));
+    }
+    
+    @Test
+    public void recordFrame_countsJankOverBudget() {
+        FrameStats stats = new FrameStats();
+        stats.setFrameBudgetNanos(16666667L);
+        
+        stats.recordFrame(16666667L);
+        stats.recordFrame(20000000L);
+        stats.recordFrame(33333334L);
+        
+        assertEquals(1, stats.getJankCount());
+        assertEquals(0L, stats.getPercentileNanos(FrameStats.PHASE_LOCK_CANVAS, 50));
+        
+        stats.reset();
+        assertEquals(0, stats.getJankCount());
+        assertEquals(0, stats.getWindowSize(FrameStats.PHASE_FRAME));
+    }
+}
@@ -0,0 +1,82 @@
+package com.racingdrama;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the game thread lifecycle state machine.
+ */
+public class GameLifecycleTest {
+    @Test
+    public void state_needsBothResumeAndSurface() {
+        GameLifecycle lifecycle = new GameLifecycle();
+        assertEquals(GameLifecycle.STATE_PAUSED, lifecycle.getState());
+        
+        lifecycle.setResumed(true);
+        assertEquals(GameLifecycle.STATE_SURFACE_LOST, lifecycle.getState());
+        
+        lifecycle.setSurfaceAvailable(true);
+        assertEquals(GameLifecycle.STATE_RUNNING, lifecycle.getState());
+        
+        lifecycle.setResumed(false);
+        assertEquals(GameLifecycle.STATE_PAUSED, lifecycle.getState());
+        
+        lifecycle.stop();
+        assertEquals(GameLifecycle.STATE_STOPPED, lifecycle.getState());
+    }
+    
+    @Test
+    public void parkedThread_resumesWhenRunningAndExitsWhenStopped() throws Exception {
+        final GameLifecycle lifecycle = new GameLifecycle();
+        final boolean[] results = new boolean[2];
+        
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = lifecycle.awaitRunning();
+                lifecycle.setResumed(false);
+                results[1] = lifecycle.awaitRunning();
+            }
+        });
+        thread.start();
+        
+        lifecycle.setSurfaceAvailable(true);
+        lifecycle.setResumed(true);
+        
+        // Wait for the thread to pause itself again, then stop it
+        while (lifecycle.getState() == GameLifecycle.STATE_RUNNING) {
+            Thread.sleep(1);
+        }
+        lifecycle.stop();
+        thread.join(1000);
+        
+        assertFalse(thread.isAlive());
+        assertTrue(results[0]);
+        assertFalse(results[1]);
+    }
+    
+    @Test
+    public void losingSurface_waitsForFrameInFlight() throws Exception {
+        final GameLifecycle lifecycle = new GameLifecycle();
+        lifecycle.setResumed(true);
+        lifecycle.setSurfaceAvailable(true);
+        assertTrue(lifecycle.beginSurfaceUse());
+        
+        Thread destroyer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lifecycle.setSurfaceAvailable(false);
+            }
+        });
+        destroyer.start();
+        destroyer.join(50);
+        assertTrue(destroyer.isAlive());
+        
+        // No new frames may start once the surface is going away
+        assertFalse(lifecycle.beginSurfaceUse());
+        
+        lifecycle.endSurfaceUse();
+        destroyer.join(1000);
+        assertFalse(destroyer.isAlive());
+    }
+}
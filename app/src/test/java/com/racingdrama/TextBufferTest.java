@@ -0,0 +1,56 @@
+package com.racingdrama;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Local unit tests for HUD text formatting.
+ */
+public class TextBufferTest {
+    @Test
+    public void formatsNumbersAndText() {
+        TextBuffer text = new TextBuffer(64);
+        
+        text.append("Score: ").append(1234L).append(' ').append(-5L).append(' ').append(0L);
+        assertEquals("Score: 1234 -5 0", text.toString());
+        
+        text.clear().appendPadded("draw", 7).appendMillis(16666667L).append(" ").appendUpperCase("wheelie");
+        assertEquals("draw   16.67 WHEELIE", text.toString());
+    }
+    
+    @Test
+    public void dropsTextPastCapacity() {
+        TextBuffer text = new TextBuffer(8);
+        
+        text.append("Score: ").append(12345L);
+        assertEquals("Score: ", text.toString());
+    }
+    
+    @Test
+    public void steadyStateFormatting_doesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TextBuffer text = new TextBuffer(128);
+        
+        // Warm up so class loading and compilation aren't counted
+        for (int i = 0; i < 20000; i++) {
+            formatHud(text, i);
+        }
+        
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 20000; i++) {
+            formatHud(text, i);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        
+        assertEquals(0, allocated);
+    }
+    
+    private static void formatHud(TextBuffer text, int frame) {
+        text.clear().append("Distance: ").append(frame * 5L).append('m')
+                .append(" PERFORMING: ").appendUpperCase("jump")
+                .append(" p99 ").appendMillis(frame * 1000L);
+    }
+}
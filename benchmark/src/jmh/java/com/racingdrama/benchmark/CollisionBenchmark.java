@@ -0,0 +1,38 @@
+package com.racingdrama.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Player-vs-obstacle collision checks and obstacle-vs-obstacle pair
+ * queries, starting from a road already full of obstacles (see
+ * {@link SimulationState}). checkCollision tests the same positions every
+ * time; updateAndCheckCollision moves the obstacles between checks so the
+ * player keeps meeting new ones, as in a real run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+
+    @Benchmark
+    public boolean checkCollision(SimulationState state) {
+        state.engine.checkCollision();
+        return state.engine.isGameOver();
+    }
+    
+    @Benchmark
+    public boolean updateAndCheckCollision(SimulationState state) {
+        state.engine.updateObstacles();
+        state.engine.checkCollision();
+        return state.engine.isGameOver();
+    }
+    
+    @Benchmark
+    public int findOverlappingPairs(SimulationState state) {
+        return state.engine.getObstacles().findOverlappingPairs(state.pairs);
+    }
+}
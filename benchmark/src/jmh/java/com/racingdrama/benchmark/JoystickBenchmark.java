@@ -0,0 +1,55 @@
+package com.racingdrama.benchmark;
+
+import com.racingdrama.engine.Joystick;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The joystick stick-position math run on every touch move. Independent
+ * of the obstacle count, so this is not parameterized.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JoystickBenchmark {
+    // Same placement as the game's joystick on a 1080x1920 screen
+    private static final int BASE_X = 200;
+    private static final int BASE_Y = 1700;
+    private static final int BASE_RADIUS = 150;
+    
+    // Pre-generated touch points, about half of them outside the base
+    private static final int TOUCH_COUNT = 1024;
+    private final float[] touchX = new float[TOUCH_COUNT];
+    private final float[] touchY = new float[TOUCH_COUNT];
+    private int touchIndex;
+    
+    private Joystick joystick;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        joystick = new Joystick(BASE_X, BASE_Y, BASE_RADIUS);
+        
+        Random random = new Random(SimulationState.SEED);
+        for (int i = 0; i < TOUCH_COUNT; i++) {
+            touchX[i] = BASE_X + (random.nextFloat() * 2 - 1) * BASE_RADIUS * 1.5f;
+            touchY[i] = BASE_Y + (random.nextFloat() * 2 - 1) * BASE_RADIUS * 1.5f;
+        }
+    }
+    
+    @Benchmark
+    public float updateStickPosition() {
+        int i = touchIndex++ & (TOUCH_COUNT - 1);
+        joystick.updateStickPosition(touchX[i], touchY[i]);
+        return joystick.getDeltaX() + joystick.getDeltaY();
+    }
+}
@@ -0,0 +1,21 @@
+package com.racingdrama.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The obstacle update loop, one simulation step per invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObstacleBenchmark {
+
+    @Benchmark
+    public void updateObstacles(SimulationState state) {
+        state.engine.updateObstacles();
+    }
+}
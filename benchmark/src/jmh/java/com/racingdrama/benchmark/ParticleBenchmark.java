@@ -0,0 +1,51 @@
+package com.racingdrama.benchmark;
+
+import com.racingdrama.engine.ParticleSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One particle update step at a steady live count. Each invocation emits
+ * as many particles as expire, so the pool stays at the parameterized size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleBenchmark {
+    // Steps each particle lives for (plus up to half again)
+    private static final int LIFE_STEPS = 40;
+    
+    @Param({"100", "1000", "4000"})
+    public int liveParticles;
+    
+    private ParticleSystem particles;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY, SimulationState.SEED);
+        
+        // Fill to the target, then run until the ages are spread out
+        particles.emit(ParticleSystem.SPRITE_DEBRIS, liveParticles, 540, 960, 50, 0, 0, 8, LIFE_STEPS);
+        for (int step = 0; step < LIFE_STEPS * 2; step++) {
+            update();
+        }
+    }
+    
+    @Benchmark
+    public ParticleSystem update() {
+        particles.update();
+        particles.emit(ParticleSystem.SPRITE_DEBRIS, liveParticles - particles.getLiveCount(),
+                540, 960, 50, 0, 0, 8, LIFE_STEPS);
+        return particles;
+    }
+}
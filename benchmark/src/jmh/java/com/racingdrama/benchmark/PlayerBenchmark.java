@@ -0,0 +1,67 @@
+package com.racingdrama.benchmark;
+
+import com.racingdrama.engine.Player;
+import com.racingdrama.engine.SpriteSizes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-step player work: physics update and joystick steering. Player cost
+ * does not depend on the obstacle count, so this is not parameterized.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerBenchmark {
+    // Pre-generated joystick deflections, cycled through so the branches vary
+    private static final int INPUT_COUNT = 1024;
+    private final float[] horizontal = new float[INPUT_COUNT];
+    private final float[] vertical = new float[INPUT_COUNT];
+    private int inputIndex;
+    
+    private Player player;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpriteSizes sizes = new SpriteSizes();
+        player = new Player(sizes.getBikeWidth(), sizes.getBikeHeight(),
+                SimulationState.SCREEN_WIDTH, SimulationState.SCREEN_HEIGHT);
+        
+        Random random = new Random(SimulationState.SEED);
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            horizontal[i] = random.nextFloat() * 2 - 1;
+            vertical[i] = random.nextFloat() * 2 - 1;
+        }
+    }
+    
+    @Benchmark
+    public Player update() {
+        player.update();
+        return player;
+    }
+    
+    @Benchmark
+    public Player moveWithJoystick() {
+        int i = inputIndex++ & (INPUT_COUNT - 1);
+        player.moveWithJoystick(horizontal[i], vertical[i]);
+        return player;
+    }
+    
+    @Benchmark
+    public Player updateAndMove() {
+        int i = inputIndex++ & (INPUT_COUNT - 1);
+        player.update();
+        player.moveWithJoystick(horizontal[i], vertical[i]);
+        return player;
+    }
+}
@@ -0,0 +1,80 @@
+package com.racingdrama.benchmark;
+
+import com.racingdrama.engine.GameEngine;
+import com.racingdrama.engine.GameInput;
+import com.racingdrama.engine.InputRecorder;
+import com.racingdrama.engine.InputReplayer;
+import com.racingdrama.engine.SpriteSizes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a whole recorded run at maximum speed, so the same session can
+ * be timed repeatedly and compared across builds. Pass a recording pulled
+ * from a device with -PjmhReplay=path; without one a scripted two-minute
+ * run is recorded in setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayBenchmark {
+    // Scripted run used when no recording is given
+    private static final int SCRIPTED_TICKS = 120 * 60;
+    private static final long STEP_NANOS = 1000000000L / 60;
+    
+    @Param({""})
+    public String recording;
+    
+    private byte[] recordingBytes;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        recordingBytes = recording.isEmpty() ? recordScriptedRun() : Files.readAllBytes(Paths.get(recording));
+    }
+    
+    private static byte[] recordScriptedRun() throws IOException {
+        GameEngine engine = new GameEngine(SimulationState.SCREEN_WIDTH, SimulationState.SCREEN_HEIGHT,
+                new SpriteSizes(), SimulationState.SEED);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GameInput input = new GameInput();
+        
+        try (InputRecorder recorder = new InputRecorder(bytes, engine, 0)) {
+            for (int tick = 0; tick < SCRIPTED_TICKS; tick++) {
+                input.clear();
+                input.setJoystick(true, (float) Math.sin(tick / 40.0), (float) Math.cos(tick / 90.0) * 0.3f);
+                input.setStunt(tick % 300 == 0 ? "jump" : null);
+                
+                // Keep playing after a crash or the finish line
+                input.setRestart(engine.isGameOver() || engine.isGameWon());
+                
+                recorder.record(input, tick * STEP_NANOS);
+                engine.step(input);
+            }
+        }
+        return bytes.toByteArray();
+    }
+    
+    @Benchmark
+    public int replay() throws IOException, InterruptedException {
+        try (InputReplayer replayer = new InputReplayer(new ByteArrayInputStream(recordingBytes))) {
+            GameEngine engine = replayer.createEngine();
+            replayer.replay(engine, false);
+            return engine.getScore();
+        }
+    }
+}
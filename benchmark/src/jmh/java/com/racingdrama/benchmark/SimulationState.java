@@ -0,0 +1,48 @@
+package com.racingdrama.benchmark;
+
+import com.racingdrama.engine.GameEngine;
+import com.racingdrama.engine.SpriteSizes;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A seeded engine on a phone-sized screen with a configurable number of
+ * obstacles, shared by the benchmarks that scale with obstacle count.
+ * Obstacles spawn above the screen, so the engine is advanced until they
+ * have come down onto the road around the player before timing starts.
+ */
+@State(Scope.Thread)
+public class SimulationState {
+    // Typical portrait phone resolution
+    static final int SCREEN_WIDTH = 1080;
+    static final int SCREEN_HEIGHT = 1920;
+    
+    // Fixed seed so every fork benchmarks the same game
+    static final long SEED = 42L;
+    
+    // Obstacle steps before timing; by then every obstacle is on screen and some overlap the player
+    static final int WARM_UP_STEPS = 700;
+    
+    @Param({"5", "100", "1000", "10000"})
+    public int obstacleCount;
+    
+    public GameEngine engine;
+    
+    // Room for a few overlapping pairs per obstacle
+    public int[] pairs;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), SEED, obstacleCount);
+        pairs = new int[obstacleCount * 8];
+        
+        // Obstacles only, so the player can't crash and end the game
+        for (int i = 0; i < WARM_UP_STEPS; i++) {
+            engine.updateObstacles();
+        }
+    }
+}
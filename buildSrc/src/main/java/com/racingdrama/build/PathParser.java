@@ -0,0 +1,288 @@
+package com.racingdrama.build;
+
+import java.awt.geom.Path2D;
+
+/**
+ * Parses vector drawable path data (the SVG path syntax) into a Java2D
+ * path. Handles every command, absolute and relative, with implicit
+ * repeats; elliptical arcs are converted to cubic curves.
+ */
+final class PathParser {
+    private final String data;
+    private int position;
+    
+    // Current point, start of the current subpath, and the last control point for S and T
+    private float currentX;
+    private float currentY;
+    private float startX;
+    private float startY;
+    private float controlX;
+    private float controlY;
+    
+    private final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+    
+    private PathParser(String data) {
+        this.data = data;
+    }
+    
+    /**
+     * Parses path data
+     * @param data Path data string
+     * @return Path in viewport coordinates
+     */
+    static Path2D.Float parse(String data) {
+        PathParser parser = new PathParser(data);
+        parser.parseCommands();
+        return parser.path;
+    }
+    
+    private void parseCommands() {
+        char command = 0;
+        char previous = 0;
+        
+        while (skipSeparators()) {
+            char c = data.charAt(position);
+            if (Character.isLetter(c)) {
+                command = c;
+                position++;
+            } else if (command == 0 || command == 'Z' || command == 'z') {
+                throw new IllegalArgumentException("Expected a command at " + position + " in " + data);
+            } else if (command == 'M') {
+                // Extra coordinate pairs after a move are lines
+                command = 'L';
+            } else if (command == 'm') {
+                command = 'l';
+            }
+            
+            boolean relative = Character.isLowerCase(command);
+            float baseX = relative ? currentX : 0;
+            float baseY = relative ? currentY : 0;
+            
+            switch (Character.toUpperCase(command)) {
+                case 'M':
+                    currentX = baseX + number();
+                    currentY = baseY + number();
+                    startX = currentX;
+                    startY = currentY;
+                    path.moveTo(currentX, currentY);
+                    break;
+                case 'L':
+                    lineTo(baseX + number(), baseY + number());
+                    break;
+                case 'H':
+                    lineTo(baseX + number(), currentY);
+                    break;
+                case 'V':
+                    lineTo(currentX, baseY + number());
+                    break;
+                case 'C': {
+                    float x1 = baseX + number();
+                    float y1 = baseY + number();
+                    float x2 = baseX + number();
+                    float y2 = baseY + number();
+                    curveTo(x1, y1, x2, y2, baseX + number(), baseY + number());
+                    break;
+                }
+                case 'S': {
+                    // First control point mirrors the previous curve's second one
+                    boolean follows = "CcSs".indexOf(previous) >= 0;
+                    float x1 = follows ? 2 * currentX - controlX : currentX;
+                    float y1 = follows ? 2 * currentY - controlY : currentY;
+                    float x2 = baseX + number();
+                    float y2 = baseY + number();
+                    curveTo(x1, y1, x2, y2, baseX + number(), baseY + number());
+                    break;
+                }
+                case 'Q': {
+                    float x1 = baseX + number();
+                    float y1 = baseY + number();
+                    quadTo(x1, y1, baseX + number(), baseY + number());
+                    break;
+                }
+                case 'T': {
+                    boolean follows = "QqTt".indexOf(previous) >= 0;
+                    float x1 = follows ? 2 * currentX - controlX : currentX;
+                    float y1 = follows ? 2 * currentY - controlY : currentY;
+                    quadTo(x1, y1, baseX + number(), baseY + number());
+                    break;
+                }
+                case 'A': {
+                    float radiusX = number();
+                    float radiusY = number();
+                    float rotation = number();
+                    boolean largeArc = flag();
+                    boolean sweep = flag();
+                    arcTo(radiusX, radiusY, rotation, largeArc, sweep, baseX + number(), baseY + number());
+                    break;
+                }
+                case 'Z':
+                    path.closePath();
+                    currentX = startX;
+                    currentY = startY;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown path command '" + command + "' in " + data);
+            }
+            previous = command;
+        }
+    }
+    
+    private void lineTo(float x, float y) {
+        path.lineTo(x, y);
+        currentX = x;
+        currentY = y;
+    }
+    
+    private void curveTo(float x1, float y1, float x2, float y2, float x, float y) {
+        path.curveTo(x1, y1, x2, y2, x, y);
+        controlX = x2;
+        controlY = y2;
+        currentX = x;
+        currentY = y;
+    }
+    
+    private void quadTo(float x1, float y1, float x, float y) {
+        path.quadTo(x1, y1, x, y);
+        controlX = x1;
+        controlY = y1;
+        currentX = x;
+        currentY = y;
+    }
+    
+    // Endpoint arc to center form, then one cubic per quarter turn (SVG spec, appendix F.6)
+    private void arcTo(float radiusX, float radiusY, float rotation, boolean largeArc, boolean sweep, float x, float y) {
+        double rx = Math.abs(radiusX);
+        double ry = Math.abs(radiusY);
+        if (rx == 0 || ry == 0 || (x == currentX && y == currentY)) {
+            lineTo(x, y);
+            return;
+        }
+        
+        double phi = Math.toRadians(rotation);
+        double cos = Math.cos(phi);
+        double sin = Math.sin(phi);
+        double dx = (currentX - x) / 2.0;
+        double dy = (currentY - y) / 2.0;
+        double x1p = cos * dx + sin * dy;
+        double y1p = -sin * dx + cos * dy;
+        
+        // Scale the radii up if they can't reach the endpoint
+        double lambda = (x1p * x1p) / (rx * rx) + (y1p * y1p) / (ry * ry);
+        if (lambda > 1) {
+            rx *= Math.sqrt(lambda);
+            ry *= Math.sqrt(lambda);
+        }
+        
+        double numerator = rx * rx * ry * ry - rx * rx * y1p * y1p - ry * ry * x1p * x1p;
+        double denominator = rx * rx * y1p * y1p + ry * ry * x1p * x1p;
+        double coefficient = Math.sqrt(Math.max(0, numerator / denominator));
+        if (largeArc == sweep) {
+            coefficient = -coefficient;
+        }
+        double cxp = coefficient * rx * y1p / ry;
+        double cyp = -coefficient * ry * x1p / rx;
+        double cx = cos * cxp - sin * cyp + (currentX + x) / 2.0;
+        double cy = sin * cxp + cos * cyp + (currentY + y) / 2.0;
+        
+        double startAngle = Math.atan2((y1p - cyp) / ry, (x1p - cxp) / rx);
+        double endAngle = Math.atan2((-y1p - cyp) / ry, (-x1p - cxp) / rx);
+        double sweepAngle = endAngle - startAngle;
+        if (sweep && sweepAngle < 0) {
+            sweepAngle += 2 * Math.PI;
+        } else if (!sweep && sweepAngle > 0) {
+            sweepAngle -= 2 * Math.PI;
+        }
+        
+        int segments = (int) Math.ceil(Math.abs(sweepAngle) / (Math.PI / 2) - 1e-6);
+        double step = sweepAngle / segments;
+        double handle = 4.0 / 3.0 * Math.tan(step / 4);
+        double angle = startAngle;
+        for (int i = 0; i < segments; i++) {
+            double cos1 = Math.cos(angle);
+            double sin1 = Math.sin(angle);
+            double cos2 = Math.cos(angle + step);
+            double sin2 = Math.sin(angle + step);
+            
+            // Unit circle control points, then onto the rotated ellipse
+            double[] points = {
+                    cos1 - handle * sin1, sin1 + handle * cos1,
+                    cos2 + handle * sin2, sin2 - handle * cos2,
+                    cos2, sin2};
+            float[] mapped = new float[6];
+            for (int p = 0; p < 6; p += 2) {
+                double ex = points[p] * rx;
+                double ey = points[p + 1] * ry;
+                mapped[p] = (float) (cos * ex - sin * ey + cx);
+                mapped[p + 1] = (float) (sin * ex + cos * ey + cy);
+            }
+            path.curveTo(mapped[0], mapped[1], mapped[2], mapped[3], mapped[4], mapped[5]);
+            angle += step;
+        }
+        
+        // Land exactly on the endpoint
+        currentX = x;
+        currentY = y;
+    }
+    
+    // Skips whitespace and commas; false at the end of the data
+    private boolean skipSeparators() {
+        while (position < data.length()) {
+            char c = data.charAt(position);
+            if (c != ',' && !Character.isWhitespace(c)) {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+    
+    private float number() {
+        if (!skipSeparators()) {
+            throw new IllegalArgumentException("Path data ended early: " + data);
+        }
+        
+        int start = position;
+        if (data.charAt(position) == '-' || data.charAt(position) == '+') {
+            position++;
+        }
+        
+        // A second '.' starts the next number, as in "0.5.5"
+        boolean seenDot = false;
+        boolean seenExponent = false;
+        while (position < data.length()) {
+            char c = data.charAt(position);
+            if (Character.isDigit(c)) {
+                position++;
+            } else if (c == '.' && !seenDot && !seenExponent) {
+                seenDot = true;
+                position++;
+            } else if ((c == 'e' || c == 'E') && !seenExponent && position > start) {
+                seenExponent = true;
+                position++;
+                if (position < data.length() && (data.charAt(position) == '-' || data.charAt(position) == '+')) {
+                    position++;
+                }
+            } else {
+                break;
+            }
+        }
+        
+        if (position == start) {
+            throw new IllegalArgumentException("Expected a number at " + start + " in " + data);
+        }
+        return Float.parseFloat(data.substring(start, position));
+    }
+    
+    // Arc flags are a single digit and may run into the next number, as in "01"
+    private boolean flag() {
+        if (!skipSeparators()) {
+            throw new IllegalArgumentException("Path data ended early: " + data);
+        }
+        
+        char c = data.charAt(position++);
+        if (c != '0' && c != '1') {
+            throw new IllegalArgumentException("Expected an arc flag at " + (position - 1) + " in " + data);
+        }
+        return c == '1';
+    }
+}
@@ -0,0 +1,313 @@
+package com.racingdrama.build;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Rasterizes Android vector drawables on the build host, with nothing but
+ * the JDK, into the raw pixel format the app's RasterCache reads. Each
+ * drawable is written once per density bucket as
+ * {@code <output>/<bucket>/<name>.raster}.
+ *
+ * Covers the parts of the vector format the game's drawables use: paths
+ * with fill and stroke colors, alphas, caps and joins, fill types, and
+ * nested groups with transforms. Anything else fails the build rather
+ * than silently drawing something different from the device.
+ */
+public class VectorRasterizer {
+    private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
+    
+    // Density buckets and their dpi, as Android names them
+    public static final String[] BUCKETS = {"mdpi", "hdpi", "xhdpi", "xxhdpi", "xxxhdpi"};
+    public static final int[] BUCKET_DPI = {160, 240, 320, 480, 640};
+    
+    // Entry header, kept in step with RasterCache: magic, format version, width, height,
+    // config, pixel byte count, then the drawable's size in dp
+    private static final int MAGIC = 0x52445243; // "RDRC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int CONFIG_ARGB_8888 = 0;
+    private static final int CONFIG_RGB_565 = 1;
+    
+    // Android's default stroke miter limit
+    private static final float MITER_LIMIT = 4f;
+    
+    private final File outputDir;
+    
+    /**
+     * Constructor
+     * @param outputDir Directory the bucket directories are written under
+     */
+    public VectorRasterizer(File outputDir) {
+        this.outputDir = outputDir;
+    }
+    
+    /**
+     * Rasterizes one drawable into every density bucket
+     * @param vectorXml Vector drawable XML file
+     * @param opaque true to write RGB_565 pixels over black, as the app does for opaque assets
+     */
+    public void rasterize(File vectorXml, boolean opaque) throws IOException {
+        Element vector = parse(vectorXml);
+        String name = vectorXml.getName().replaceFirst("\\.xml$", "");
+        
+        float widthDp = parseDp(attr(vector, "width"));
+        float heightDp = parseDp(attr(vector, "height"));
+        float viewportWidth = Float.parseFloat(attr(vector, "viewportWidth"));
+        float viewportHeight = Float.parseFloat(attr(vector, "viewportHeight"));
+        
+        for (int i = 0; i < BUCKETS.length; i++) {
+            float scale = BUCKET_DPI[i] / 160f;
+            
+            // Same truncation as VectorDrawableCompat.getIntrinsicWidth()
+            int width = (int) (widthDp * scale);
+            int height = (int) (heightDp * scale);
+            
+            BufferedImage image = new BufferedImage(width, height,
+                    opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            if (opaque) {
+                // A new RGB_565 bitmap starts black
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, width, height);
+            }
+            
+            AffineTransform viewport = AffineTransform.getScaleInstance(width / viewportWidth, height / viewportHeight);
+            drawChildren(g, vector, viewport, parseAlpha(vector, "alpha"));
+            g.dispose();
+            
+            File bucketDir = new File(outputDir, BUCKETS[i]);
+            if (!bucketDir.isDirectory() && !bucketDir.mkdirs()) {
+                throw new IOException("Couldn't create " + bucketDir);
+            }
+            write(new File(bucketDir, name + ".raster"), image, opaque, widthDp, heightDp);
+        }
+    }
+    
+    private static Element parse(File file) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            Document document = factory.newDocumentBuilder().parse(file);
+            Element root = document.getDocumentElement();
+            if (!"vector".equals(root.getLocalName())) {
+                throw new IOException(file + " is not a vector drawable");
+            }
+            return root;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Couldn't parse " + file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void drawChildren(Graphics2D g, Element parent, AffineTransform transform, float alpha) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            
+            Element element = (Element) node;
+            String tag = element.getLocalName();
+            if ("path".equals(tag)) {
+                drawPath(g, element, transform, alpha);
+            } else if ("group".equals(tag)) {
+                AffineTransform groupTransform = new AffineTransform(transform);
+                groupTransform.concatenate(groupTransform(element));
+                drawChildren(g, element, groupTransform, alpha);
+            } else {
+                throw new IllegalArgumentException("Unsupported vector element <" + tag + ">");
+            }
+        }
+    }
+    
+    // Same order as VectorDrawable: translate, then rotate and scale about the pivot
+    private static AffineTransform groupTransform(Element group) {
+        float pivotX = parseFloat(group, "pivotX", 0);
+        float pivotY = parseFloat(group, "pivotY", 0);
+        
+        AffineTransform transform = new AffineTransform();
+        transform.translate(parseFloat(group, "translateX", 0) + pivotX, parseFloat(group, "translateY", 0) + pivotY);
+        transform.rotate(Math.toRadians(parseFloat(group, "rotation", 0)));
+        transform.scale(parseFloat(group, "scaleX", 1), parseFloat(group, "scaleY", 1));
+        transform.translate(-pivotX, -pivotY);
+        return transform;
+    }
+    
+    private void drawPath(Graphics2D g, Element element, AffineTransform transform, float alpha) {
+        Path2D.Float path = PathParser.parse(attr(element, "pathData"));
+        if ("evenOdd".equals(optionalAttr(element, "fillType"))) {
+            path.setWindingRule(Path2D.WIND_EVEN_ODD);
+        }
+        Shape shape = transform.createTransformedShape(path);
+        
+        // Fill first, then stroke, like the platform renderer
+        String fillColor = optionalAttr(element, "fillColor");
+        if (fillColor != null) {
+            g.setColor(parseColor(fillColor, alpha * parseAlpha(element, "fillAlpha")));
+            g.fill(shape);
+        }
+        
+        String strokeColor = optionalAttr(element, "strokeColor");
+        float strokeWidth = parseFloat(element, "strokeWidth", 0);
+        if (strokeColor != null && strokeWidth > 0) {
+            // The platform scales stroke widths by the smaller axis scale
+            double scaleX = Math.hypot(transform.getScaleX(), transform.getShearY());
+            double scaleY = Math.hypot(transform.getShearX(), transform.getScaleY());
+            float minScale = (float) Math.min(scaleX, scaleY);
+            
+            g.setColor(parseColor(strokeColor, alpha * parseAlpha(element, "strokeAlpha")));
+            g.setStroke(new BasicStroke(strokeWidth * minScale, parseCap(optionalAttr(element, "strokeLineCap")),
+                    parseJoin(optionalAttr(element, "strokeLineJoin")),
+                    parseFloat(element, "strokeMiterLimit", MITER_LIMIT)));
+            g.draw(shape);
+        }
+    }
+    
+    private static void write(File file, BufferedImage image, boolean opaque, float widthDp, float heightDp) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        
+        // Premultiplied RGBA bytes, or RGB_565 shorts, in the bitmap's own row layout
+        int byteCount = width * height * (opaque ? 2 : 4);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + byteCount).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putInt(opaque ? CONFIG_RGB_565 : CONFIG_ARGB_8888);
+        buffer.putInt(byteCount);
+        buffer.putFloat(widthDp);
+        buffer.putFloat(heightDp);
+        
+        for (int pixel : argb) {
+            int a = pixel >>> 24;
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            if (opaque) {
+                buffer.putShort((short) (((r >> 3) << 11) | ((g >> 2) << 5) | (b >> 3)));
+            } else {
+                // getRGB un-premultiplies, so premultiply again for the bitmap
+                buffer.put((byte) ((r * a + 127) / 255));
+                buffer.put((byte) ((g * a + 127) / 255));
+                buffer.put((byte) ((b * a + 127) / 255));
+                buffer.put((byte) a);
+            }
+        }
+        
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(buffer.array());
+        }
+    }
+    
+    private static String attr(Element element, String name) {
+        String value = optionalAttr(element, name);
+        if (value == null) {
+            throw new IllegalArgumentException("<" + element.getLocalName() + "> is missing android:" + name);
+        }
+        return value;
+    }
+    
+    private static String optionalAttr(Element element, String name) {
+        return element.hasAttributeNS(ANDROID_NS, name) ? element.getAttributeNS(ANDROID_NS, name) : null;
+    }
+    
+    private static float parseFloat(Element element, String name, float defaultValue) {
+        String value = optionalAttr(element, name);
+        return value == null ? defaultValue : Float.parseFloat(value);
+    }
+    
+    private static float parseAlpha(Element element, String name) {
+        return parseFloat(element, name, 1f);
+    }
+    
+    private static float parseDp(String value) {
+        if (!value.endsWith("dp")) {
+            throw new IllegalArgumentException("Vector size must be in dp: " + value);
+        }
+        return Float.parseFloat(value.substring(0, value.length() - 2));
+    }
+    
+    /**
+     * Parses an Android color literal (#RGB, #ARGB, #RRGGBB or #AARRGGBB)
+     * @param value Color literal
+     * @param alpha Extra alpha to multiply in
+     * @return Color
+     */
+    static Color parseColor(String value, float alpha) {
+        if (!value.startsWith("#")) {
+            throw new IllegalArgumentException("Only color literals are supported: " + value);
+        }
+        
+        String hex = value.substring(1);
+        if (hex.length() == 3 || hex.length() == 4) {
+            // Short form: each digit doubled
+            StringBuilder expanded = new StringBuilder();
+            for (int i = 0; i < hex.length(); i++) {
+                expanded.append(hex.charAt(i)).append(hex.charAt(i));
+            }
+            hex = expanded.toString();
+        }
+        
+        long argb = Long.parseLong(hex, 16);
+        if (hex.length() == 6) {
+            argb |= 0xFF000000L;
+        } else if (hex.length() != 8) {
+            throw new IllegalArgumentException("Bad color: " + value);
+        }
+        
+        int a = Math.round(((argb >>> 24) & 0xFF) * alpha);
+        return new Color((int) (argb >> 16) & 0xFF, (int) (argb >> 8) & 0xFF, (int) argb & 0xFF, a);
+    }
+    
+    private static int parseCap(String value) {
+        if ("round".equals(value)) {
+            return BasicStroke.CAP_ROUND;
+        } else if ("square".equals(value)) {
+            return BasicStroke.CAP_SQUARE;
+        }
+        return BasicStroke.CAP_BUTT;
+    }
+    
+    private static int parseJoin(String value) {
+        if ("round".equals(value)) {
+            return BasicStroke.JOIN_ROUND;
+        } else if ("bevel".equals(value)) {
+            return BasicStroke.JOIN_BEVEL;
+        }
+        return BasicStroke.JOIN_MITER;
+    }
+    
+    /**
+     * Rasterizes drawables from the command line
+     * @param args Output directory, then vector XML files; prefix a file with "opaque:" for RGB_565
+     */
+    public static void main(String[] args) throws IOException {
+        VectorRasterizer rasterizer = new VectorRasterizer(new File(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            boolean opaque = args[i].startsWith("opaque:");
+            rasterizer.rasterize(new File(opaque ? args[i].substring("opaque:".length()) : args[i]), opaque);
+        }
+    }
+}
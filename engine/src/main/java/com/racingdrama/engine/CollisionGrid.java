@@ -0,0 +1,299 @@
+package com.racingdrama.engine;
+
+/**
+ * Broad phase for collision checks: a uniform grid of square cells over
+ * the road, so a query only tests the boxes in the few cells it touches
+ * instead of every box on the road.
+ *
+ * Boxes are identified by small integer ids (the obstacle store's
+ * indices) and filed under the cell holding their top-left corner, in a
+ * linked list threaded through per-id arrays. Moving a box only relinks
+ * it when it crosses into another cell, so keeping the grid current costs
+ * almost nothing per step. Positions outside the grid are clamped into
+ * the edge cells, which keeps every query correct at the cost of a few
+ * extra tests for boxes far off screen.
+ *
+ * Every overlap test is a pure comparison; neither the query box nor the
+ * stored boxes are ever modified.
+ */
+public class CollisionGrid {
+    // Returned by timeOfImpact when the boxes never overlap during the move
+    public static final float NO_IMPACT = -1f;
+    
+    // Area the cells cover, and the cell size in pixels
+    private final int originX;
+    private final int originY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    
+    // First id in each cell, or -1
+    private final int[] cellHeads;
+    
+    // Per-id cell and neighbours in that cell's list; cell is -1 when the id isn't in the grid
+    private final int[] cellOf;
+    private final int[] next;
+    private final int[] previous;
+    
+    // Per-id boxes
+    private final int[] lefts;
+    private final int[] tops;
+    private final int[] rights;
+    private final int[] bottoms;
+    
+    // Largest box seen, which is how far a query has to look back into earlier cells
+    private int maxWidth;
+    private int maxHeight;
+    
+    /**
+     * Constructor
+     * @param left Left edge of the area covered
+     * @param top Top edge of the area covered
+     * @param right Right edge of the area covered
+     * @param bottom Bottom edge of the area covered
+     * @param cellSize Cell width and height in pixels; about the size of the largest box works best
+     * @param capacity Number of ids, 0 to capacity - 1
+     */
+    public CollisionGrid(int left, int top, int right, int bottom, int cellSize, int capacity) {
+        if (cellSize <= 0 || right <= left || bottom <= top) {
+            throw new IllegalArgumentException("Grid needs a positive cell size and area");
+        }
+        
+        this.originX = left;
+        this.originY = top;
+        this.cellSize = cellSize;
+        this.columns = (right - left + cellSize - 1) / cellSize;
+        this.rows = (bottom - top + cellSize - 1) / cellSize;
+        
+        cellHeads = new int[columns * rows];
+        cellOf = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        lefts = new int[capacity];
+        tops = new int[capacity];
+        rights = new int[capacity];
+        bottoms = new int[capacity];
+        clear();
+    }
+    
+    /**
+     * Checks two boxes for overlap. Touching edges don't count.
+     * @return true if the boxes overlap
+     */
+    public static boolean overlaps(int left1, int top1, int right1, int bottom1,
+                                   int left2, int top2, int right2, int bottom2) {
+        return left1 < right2 && left2 < right1 && top1 < bottom2 && top2 < bottom1;
+    }
+    
+    /**
+     * Sweeps a moving box against a still one and finds when they first
+     * overlap. Touching edges don't count, same as {@link #overlaps}.
+     * @param left Moving box left at the start
+     * @param top Moving box top at the start
+     * @param right Moving box right at the start
+     * @param bottom Moving box bottom at the start
+     * @param moveX Horizontal distance the box moves
+     * @param moveY Vertical distance the box moves
+     * @param otherLeft Still box left
+     * @param otherTop Still box top
+     * @param otherRight Still box right
+     * @param otherBottom Still box bottom
+     * @return Fraction of the move, 0 to 1, at which the boxes first overlap, 0 if they
+     *         already do, or NO_IMPACT if they never do
+     */
+    public static float timeOfImpact(int left, int top, int right, int bottom, int moveX, int moveY,
+                                     int otherLeft, int otherTop, int otherRight, int otherBottom) {
+        float enter = 0;
+        float exit = 1;
+        
+        // Clip the move to the span where each axis overlaps
+        if (moveX == 0) {
+            if (left >= otherRight || otherLeft >= right) {
+                return NO_IMPACT;
+            }
+        } else {
+            float first = (float) (otherLeft - right) / moveX;
+            float second = (float) (otherRight - left) / moveX;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        
+        if (moveY == 0) {
+            if (top >= otherBottom || otherTop >= bottom) {
+                return NO_IMPACT;
+            }
+        } else {
+            float first = (float) (otherTop - bottom) / moveY;
+            float second = (float) (otherBottom - top) / moveY;
+            enter = Math.max(enter, Math.min(first, second));
+            exit = Math.min(exit, Math.max(first, second));
+        }
+        
+        // Both axes have to overlap at once, for more than an instant
+        return enter < exit ? enter : NO_IMPACT;
+    }
+    
+    /**
+     * Adds a box or moves one already in the grid
+     * @param id Box id
+     * @param left Box left
+     * @param top Box top
+     * @param right Box right
+     * @param bottom Box bottom
+     */
+    public void set(int id, int left, int top, int right, int bottom) {
+        lefts[id] = left;
+        tops[id] = top;
+        rights[id] = right;
+        bottoms[id] = bottom;
+        maxWidth = Math.max(maxWidth, right - left);
+        maxHeight = Math.max(maxHeight, bottom - top);
+        
+        int cell = row(top) * columns + column(left);
+        if (cell != cellOf[id]) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+    
+    /**
+     * Moves a box vertically, the only way obstacles move
+     * @param id Box id, already in the grid
+     * @param top New top; the height is unchanged
+     */
+    public void setTop(int id, int top) {
+        set(id, lefts[id], top, rights[id], top + bottoms[id] - tops[id]);
+    }
+    
+    /**
+     * Removes a box
+     * @param id Box id
+     */
+    public void remove(int id) {
+        unlink(id);
+    }
+    
+    /**
+     * Gives a box a new id, for when the store moves an obstacle into a freed slot
+     * @param from Current id, in the grid
+     * @param to New id, not in the grid
+     */
+    public void renumber(int from, int to) {
+        set(to, lefts[from], tops[from], rights[from], bottoms[from]);
+        unlink(from);
+    }
+    
+    /**
+     * Removes every box
+     */
+    public void clear() {
+        for (int i = 0; i < cellHeads.length; i++) {
+            cellHeads[i] = -1;
+        }
+        for (int i = 0; i < cellOf.length; i++) {
+            cellOf[i] = -1;
+        }
+    }
+    
+    /**
+     * Finds the boxes overlapping a query box
+     * @param left Query left
+     * @param top Query top
+     * @param right Query right
+     * @param bottom Query bottom
+     * @param hits Receives the ids found, in no particular order
+     * @return Number of ids written, at most hits.length
+     */
+    public int query(int left, int top, int right, int bottom, int[] hits) {
+        return query(left, top, right, bottom, -1, hits, 0);
+    }
+    
+    /**
+     * Finds every pair of overlapping boxes
+     * @param pairs Receives each pair as two ids, the lower first
+     * @return Number of pairs written, at most pairs.length / 2
+     */
+    public int queryPairs(int[] pairs) {
+        int written = 0;
+        for (int cell = 0; cell < cellHeads.length; cell++) {
+            for (int id = cellHeads[cell]; id >= 0; id = next[id]) {
+                // Only partners with a higher id, so each pair comes out once
+                written = query(lefts[id], tops[id], rights[id], bottoms[id], id, pairs, written);
+                if (written == pairs.length - pairs.length % 2) {
+                    return written / 2;
+                }
+            }
+        }
+        return written / 2;
+    }
+    
+    // With pairFirst >= 0 writes (pairFirst, id) for each hit above pairFirst instead of just the id
+    private int query(int left, int top, int right, int bottom, int pairFirst, int[] out, int written) {
+        // A box overlapping the query can start up to the largest box size before it
+        int firstColumn = column(left - maxWidth);
+        int lastColumn = column(right);
+        int firstRow = row(top - maxHeight);
+        int lastRow = row(bottom);
+        int stride = pairFirst >= 0 ? 2 : 1;
+        
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int id = cellHeads[row * columns + column]; id >= 0; id = next[id]) {
+                    if (id <= pairFirst
+                            || !overlaps(left, top, right, bottom, lefts[id], tops[id], rights[id], bottoms[id])) {
+                        continue;
+                    }
+                    if (written + stride > out.length) {
+                        return written;
+                    }
+                    
+                    if (pairFirst >= 0) {
+                        out[written++] = pairFirst;
+                    }
+                    out[written++] = id;
+                }
+            }
+        }
+        return written;
+    }
+    
+    private void link(int id, int cell) {
+        int head = cellHeads[cell];
+        cellOf[id] = cell;
+        previous[id] = -1;
+        next[id] = head;
+        if (head >= 0) {
+            previous[head] = id;
+        }
+        cellHeads[cell] = id;
+    }
+    
+    private void unlink(int id) {
+        int cell = cellOf[id];
+        if (cell < 0) {
+            return;
+        }
+        
+        if (previous[id] >= 0) {
+            next[previous[id]] = next[id];
+        } else {
+            cellHeads[cell] = next[id];
+        }
+        if (next[id] >= 0) {
+            previous[next[id]] = previous[id];
+        }
+        cellOf[id] = -1;
+    }
+    
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - originX, cellSize)));
+    }
+    
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - originY, cellSize)));
+    }
+    
+    public int getCellSize() {
+        return cellSize;
+    }
+}
@@ -0,0 +1,138 @@
+package com.racingdrama.engine;
+
+/**
+ * Which pixels of a sprite are solid, for pixel-accurate collision once
+ * the bounding boxes overlap. Each row is packed into longs, one bit per
+ * pixel with the leftmost pixel in the lowest bit, so testing two masks
+ * costs a shift and an AND per 64 pixels of overlapping row.
+ */
+public class CollisionMask {
+    // Pixels with at least this alpha count as solid
+    public static final int ALPHA_THRESHOLD = 0x80;
+    
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+    
+    /**
+     * Constructor
+     * @param pixels ARGB pixels, row by row, as from Bitmap.getPixels
+     * @param width Width in pixels
+     * @param height Height in pixels
+     */
+    public CollisionMask(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Mask needs a positive size and width * height pixels");
+        }
+        
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+        
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * wordsPerRow;
+            for (int x = 0; x < width; x++) {
+                if ((pixels[y * width + x] >>> 24) >= ALPHA_THRESHOLD) {
+                    bits[rowStart + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+    }
+    
+    // From packed rows, for reading recordings
+    CollisionMask(int width, int height, long[] bits) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = bits;
+    }
+    
+    /**
+     * Get the number of longs a mask of the given width and height packs into
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @return Packed length
+     */
+    static int packedLength(int width, int height) {
+        return ((width + 63) >>> 6) * height;
+    }
+    
+    /**
+     * Checks for a solid pixel shared with another mask
+     * @param other Other mask
+     * @param offsetX Other mask's left edge relative to this one's
+     * @param offsetY Other mask's top edge relative to this one's
+     * @return true if any solid pixels overlap
+     */
+    public boolean overlaps(CollisionMask other, int offsetX, int offsetY) {
+        int firstRow = Math.max(0, offsetY);
+        int lastRow = Math.min(height, offsetY + other.height);
+        int firstX = Math.max(0, offsetX);
+        int lastX = Math.min(width, offsetX + other.width);
+        if (firstRow >= lastRow || firstX >= lastX) {
+            return false;
+        }
+        
+        int firstWord = firstX >>> 6;
+        int lastWord = (lastX - 1) >>> 6;
+        for (int y = firstRow; y < lastRow; y++) {
+            int row = y * wordsPerRow;
+            int otherRow = y - offsetY;
+            for (int word = firstWord; word <= lastWord; word++) {
+                // Bits outside either mask are zero, so only the overlap can match
+                if ((bits[row + word] & other.rowBits(otherRow, (word << 6) - offsetX)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    // 64 bits of a row starting at a pixel, which may be off either end
+    private long rowBits(int y, int start) {
+        if (start <= -64 || start >= width) {
+            return 0;
+        }
+        
+        int row = y * wordsPerRow;
+        if (start < 0) {
+            return bits[row] << -start;
+        }
+        
+        int word = start >>> 6;
+        int shift = start & 63;
+        long value = bits[row + word] >>> shift;
+        if (shift != 0 && word + 1 < wordsPerRow) {
+            value |= bits[row + word + 1] << (64 - shift);
+        }
+        return value;
+    }
+    
+    /**
+     * Check whether a pixel is solid
+     * @param x Pixel column
+     * @param y Pixel row
+     * @return true if the pixel is solid, false if transparent or outside the mask
+     */
+    public boolean isSolid(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    // Packed rows, for writing recordings; not to be modified
+    long[] getBits() {
+        return bits;
+    }
+}
@@ -0,0 +1,89 @@
+package com.racingdrama.engine;
+
+/**
+ * How many obstacles should be on the road as the race goes on: a
+ * piecewise-linear curve over distance, held flat before the first and
+ * after the last keyframe. Immutable, so one curve can be shared by
+ * several engines and written into recordings.
+ */
+public class DensityCurve {
+    private final int[] distances;
+    private final int[] counts;
+    private final int maxCount;
+    
+    /**
+     * Constructor
+     * @param distances Keyframe distances in pixels, ascending
+     * @param counts Obstacle count at each keyframe
+     */
+    public DensityCurve(int[] distances, int[] counts) {
+        if (distances.length == 0 || distances.length != counts.length) {
+            throw new IllegalArgumentException("Need the same number of distances and counts, at least one");
+        }
+        
+        int max = 0;
+        for (int i = 0; i < distances.length; i++) {
+            if (i > 0 && distances[i] <= distances[i - 1]) {
+                throw new IllegalArgumentException("Keyframe distances must ascend");
+            }
+            if (counts[i] < 0) {
+                throw new IllegalArgumentException("Obstacle counts can't be negative");
+            }
+            max = Math.max(max, counts[i]);
+        }
+        
+        this.distances = distances.clone();
+        this.counts = counts.clone();
+        this.maxCount = max;
+    }
+    
+    /**
+     * Creates a curve with the same count over the whole race
+     * @param count Obstacles on the road at once
+     * @return Flat curve
+     */
+    public static DensityCurve constant(int count) {
+        return new DensityCurve(new int[]{0}, new int[]{count});
+    }
+    
+    /**
+     * Get the obstacle count at a distance
+     * @param distance Distance travelled in pixels
+     * @return Obstacles that should be on the road
+     */
+    public int countAt(int distance) {
+        if (distance <= distances[0]) {
+            return counts[0];
+        }
+        
+        for (int i = 1; i < distances.length; i++) {
+            if (distance < distances[i]) {
+                // Interpolate between the keyframes either side
+                long span = distances[i] - distances[i - 1];
+                long offset = distance - distances[i - 1];
+                return (int) (counts[i - 1] + (counts[i] - counts[i - 1]) * offset / span);
+            }
+        }
+        return counts[counts.length - 1];
+    }
+    
+    /**
+     * Get the largest count anywhere on the curve, which sizes the obstacle store
+     * @return Maximum obstacle count
+     */
+    public int getMaxCount() {
+        return maxCount;
+    }
+    
+    public int getKeyframeCount() {
+        return distances.length;
+    }
+    
+    public int getDistance(int keyframe) {
+        return distances[keyframe];
+    }
+    
+    public int getCount(int keyframe) {
+        return counts[keyframe];
+    }
+}
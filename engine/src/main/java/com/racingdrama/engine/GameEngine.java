@@ -0,0 +1,475 @@
+package com.racingdrama.engine;
+
+import java.util.Random;
+
+/**
+ * The game rules: player, obstacles, score, distance, stunts and the
+ * finish line. Pure Java with no Android dependencies, so it can be
+ * driven one {@link #step(GameInput)} at a time from a game thread, a
+ * unit test or a benchmark.
+ *
+ * All randomness comes from a single generator seeded at construction,
+ * so the same seed and the same inputs always produce the same game.
+ */
+public class GameEngine {
+    // Default traffic: the original five obstacles at the start, building to twelve by the finish line
+    public static final DensityCurve DEFAULT_DENSITY = new DensityCurve(new int[]{0, 5000}, new int[]{5, 12});
+    
+    // Screen dimensions
+    private final int screenWidth;
+    private final int screenHeight;
+    
+    // Sprite dimensions for movement limits and collision
+    private final SpriteSizes spriteSizes;
+    
+    // Obstacle count over distance
+    private final DensityCurve density;
+    
+    // Shared random generator
+    private final long seed;
+    private final Random random;
+    
+    // Game state
+    private boolean gameOver = false;
+    private boolean gameWon = false;
+    
+    // Game objects
+    private Player player;
+    
+    // Obstacles on the road, with room for the most the density curve asks for
+    private final ObstacleStore obstacles;
+    private final SpawnScheduler spawnScheduler;
+    
+    // Obstacles the player overlaps this step and when it reached them, filled by the collision grid
+    private final int[] collisionHits;
+    private final float[] collisionTimes;
+    
+    // Whether collision sweeps along the step's movement, and the earliest contact found by the last check
+    private boolean continuousCollision = true;
+    private float contactTime = CollisionGrid.NO_IMPACT;
+    private int contactTypeId = -1;
+    private int score = 0;
+    private int distance = 0;
+    private int finishLineY = -5000; // Finish line position (negative means it's ahead)
+    private int roadY = 0;
+    private int roadSpeed = 5;
+    
+    // Effects
+    private final ParticleSystem particles;
+    private boolean wasPerformingStunt = false;
+    private boolean wasLanding = false;
+    private String stuntBonusText = null;
+    private int stuntBonusTimer = 0;
+    
+    // Steps simulated since the engine was created
+    private long tick = 0;
+    
+    /**
+     * Constructor
+     * @param screenWidth Screen width in pixels
+     * @param screenHeight Screen height in pixels
+     * @param spriteSizes Sprite dimensions
+     * @param seed Seed for every random decision in the game
+     */
+    public GameEngine(int screenWidth, int screenHeight, SpriteSizes spriteSizes, long seed) {
+        this(screenWidth, screenHeight, spriteSizes, seed, DEFAULT_DENSITY);
+    }
+    
+    /**
+     * Constructor with a fixed obstacle count, used by benchmarks to scale the per-step work
+     * @param screenWidth Screen width in pixels
+     * @param screenHeight Screen height in pixels
+     * @param spriteSizes Sprite dimensions
+     * @param seed Seed for every random decision in the game
+     * @param obstacleCount Number of obstacles on the road at once
+     */
+    public GameEngine(int screenWidth, int screenHeight, SpriteSizes spriteSizes, long seed, int obstacleCount) {
+        this(screenWidth, screenHeight, spriteSizes, seed, DensityCurve.constant(obstacleCount));
+    }
+    
+    /**
+     * Constructor with custom traffic
+     * @param screenWidth Screen width in pixels
+     * @param screenHeight Screen height in pixels
+     * @param spriteSizes Sprite dimensions
+     * @param seed Seed for every random decision in the game
+     * @param density Obstacle count over distance; its maximum sizes the obstacle store
+     */
+    public GameEngine(int screenWidth, int screenHeight, SpriteSizes spriteSizes, long seed, DensityCurve density) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.spriteSizes = spriteSizes;
+        this.density = density;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.particles = new ParticleSystem(ParticleSystem.DEFAULT_CAPACITY, ~seed);
+        
+        player = createPlayer();
+        
+        obstacles = new ObstacleStore(density.getMaxCount(), spriteSizes, createCollisionGrid(player, density.getMaxCount()));
+        collisionHits = new int[density.getMaxCount()];
+        collisionTimes = new float[density.getMaxCount()];
+        spawnScheduler = new SpawnScheduler(obstacles, density, random, spriteSizes,
+                player.getRoadLeftBoundary(), player.getRoadRightBoundary(), SpawnScheduler.DEFAULT_WAVE_INTERVAL);
+        spawnScheduler.spawnInitial();
+    }
+    
+    // Grid over the road from a screen above the top, where waves spawn, down to the bottom
+    private CollisionGrid createCollisionGrid(Player player, int capacity) {
+        int cellSize = 1;
+        for (int type = 0; type < Obstacle.TYPE_COUNT; type++) {
+            cellSize = Math.max(cellSize, Math.max(spriteSizes.getObstacleWidth(type), spriteSizes.getObstacleHeight(type)));
+        }
+        return new CollisionGrid(player.getRoadLeftBoundary(), -screenHeight,
+                player.getRoadRightBoundary(), screenHeight, cellSize, capacity);
+    }
+    
+    private Player createPlayer() {
+        return new Player(spriteSizes.getBikeWidth(), spriteSizes.getBikeHeight(), screenWidth, screenHeight);
+    }
+    
+    /**
+     * Starts a new game. The random generator carries on rather than being
+     * reseeded, so a restart within a recorded run stays deterministic.
+     */
+    public void restart() {
+        // Initialize game state
+        score = 0;
+        distance = 0;
+        obstacles.clear();
+        gameOver = false;
+        gameWon = false;
+        particles.clear();
+        wasPerformingStunt = false;
+        wasLanding = false;
+        
+        // Create new player and obstacles
+        player = createPlayer();
+        spawnScheduler.spawnInitial();
+    }
+    
+    /**
+     * Advances the game by one fixed step
+     * @param input Player input for this step
+     */
+    public void step(GameInput input) {
+        tick++;
+        
+        // Apply one-shot requests
+        if (input.isRestart()) {
+            restart();
+        }
+        
+        if (input.isResetPosition()) {
+            player.resetPosition();
+        }
+        
+        if (!gameOver && !gameWon) {
+            // Update road position (for scrolling effect)
+            roadY = (roadY + roadSpeed) % screenHeight;
+            
+            // Update player
+            player.update();
+            
+            // Handle movement (left hand)
+            if (input.isJoystickMoving()) {
+                // Use continuous joystick movement
+                player.moveWithJoystick(input.getHorizontal(), input.getVertical());
+            } else if (input.getDirection() != null) {
+                // Fallback to discrete direction movement
+                player.moveWithDirection(input.getDirection());
+            }
+            
+            // Handle stunts separately (right hand)
+            if (input.getStunt() != null) {
+                player.performStunt(input.getStunt());
+            }
+            
+            // Update obstacles
+            updateObstacles();
+            
+            // Check for collisions
+            checkCollision();
+            
+            // Start effects for what the bike is doing
+            emitEffects();
+            
+            // Check for completed stunts
+            if (!player.isPerformingStunt() && player.getStuntCooldown() == player.getStuntCooldownDuration() - 1) {
+                // This means a stunt just ended
+                addStuntBonus();
+            }
+            
+            // Increase score and distance
+            score++;
+            distance += roadSpeed;
+            
+            // Check if player reached finish line
+            if (distance >= Math.abs(finishLineY)) {
+                gameWon = true;
+            }
+        }
+        
+        // Effects keep playing after the game ends
+        particles.update();
+        
+        if (stuntBonusTimer > 0) {
+            stuntBonusTimer--;
+        }
+    }
+    
+    /**
+     * Moves every obstacle one step, drops the ones that left the screen
+     * and spawns the next wave when it is due. Called by
+     * {@link #step(GameInput)}; public so benchmarks can time it on its own.
+     */
+    public void updateObstacles() {
+        obstacles.update(screenHeight);
+        spawnScheduler.update(distance);
+    }
+    
+    /**
+     * Tests the player against the obstacles near it and applies crashes
+     * and oil slowdowns. Boxes that overlap are checked pixel by pixel
+     * when the sprites have collision masks. With continuous collision the
+     * player and obstacles are swept from where they started the step, so
+     * nothing is passed through however far they moved. Called by
+     * {@link #step(GameInput)}; public so benchmarks can time it on its own.
+     */
+    public void checkCollision() {
+        int left = player.getCollisionLeft();
+        int top = player.getCollisionTop();
+        int right = player.getCollisionRight();
+        int bottom = player.getCollisionBottom();
+        int moveX = player.getX() - player.getPrevX();
+        int moveY = player.getY() - player.getPrevY();
+        
+        int hitCount = continuousCollision
+                ? obstacles.findSweptOverlaps(left, top, right, bottom, moveX, moveY, collisionHits, collisionTimes)
+                : obstacles.findOverlaps(left, top, right, bottom, collisionHits);
+        
+        contactTime = CollisionGrid.NO_IMPACT;
+        contactTypeId = -1;
+        float crashTime = CollisionGrid.NO_IMPACT;
+        for (int hit = 0; hit < hitCount; hit++) {
+            int i = collisionHits[hit];
+            float time;
+            if (continuousCollision) {
+                time = sweptMasksContact(i, collisionTimes[hit], left, top, moveX, moveY);
+            } else {
+                time = masksOverlap(i, left, top) ? 1f : CollisionGrid.NO_IMPACT;
+            }
+            if (time == CollisionGrid.NO_IMPACT) {
+                continue;
+            }
+            
+            if (contactTime == CollisionGrid.NO_IMPACT || time < contactTime) {
+                contactTime = time;
+                contactTypeId = obstacles.getTypeId(i);
+            }
+            
+            if (obstacles.isHazard(i)) {  // Only crash on hazardous obstacles
+                if (crashTime == CollisionGrid.NO_IMPACT || time < crashTime) {
+                    crashTime = time;
+                }
+            } else {  // Oil slick - slow down the player
+                player.setSpeed(Math.max(2, player.getSpeed() - 1));  // Slow down but not below 2
+            }
+        }
+        
+        if (crashTime != CollisionGrid.NO_IMPACT) {
+            if (!gameOver) {
+                emitCrash(crashTime);
+            }
+            gameOver = true;
+        }
+    }
+    
+    // Narrow phase for an obstacle whose box overlaps the player's
+    private boolean masksOverlap(int obstacle, int playerLeft, int playerTop) {
+        CollisionMask bikeMask = spriteSizes.getBikeMask(player.getBikeState());
+        CollisionMask obstacleMask = spriteSizes.getObstacleMask(obstacles.getTypeId(obstacle));
+        if (bikeMask == null || obstacleMask == null) {
+            return true;
+        }
+        return bikeMask.overlaps(obstacleMask, obstacles.getX(obstacle) - playerLeft, obstacles.getY(obstacle) - playerTop);
+    }
+    
+    // Narrow phase for a swept hit: steps the masks a pixel of relative movement at a time from
+    // where the boxes first met to the end of the step, and returns when they first touch
+    private float sweptMasksContact(int obstacle, float boxTime, int playerLeft, int playerTop, int moveX, int moveY) {
+        CollisionMask bikeMask = spriteSizes.getBikeMask(player.getBikeState());
+        CollisionMask obstacleMask = spriteSizes.getObstacleMask(obstacles.getTypeId(obstacle));
+        if (bikeMask == null || obstacleMask == null) {
+            return boxTime;
+        }
+        
+        // Obstacle position relative to the bike at the start of the step, and how it changes over the step
+        int startY = obstacles.getPrevY(obstacle);
+        int offsetX = obstacles.getX(obstacle) - (playerLeft - moveX);
+        int offsetY = startY - (playerTop - moveY);
+        int relativeX = -moveX;
+        int relativeY = obstacles.getY(obstacle) - startY - moveY;
+        
+        int samples = (int) Math.ceil(Math.max(Math.abs(relativeX), Math.abs(relativeY)) * (1 - boxTime));
+        for (int sample = 0; sample <= samples; sample++) {
+            float time = samples == 0 ? boxTime : boxTime + (1 - boxTime) * sample / samples;
+            if (bikeMask.overlaps(obstacleMask, Math.round(offsetX + relativeX * time), Math.round(offsetY + relativeY * time))) {
+                return time;
+            }
+        }
+        return CollisionGrid.NO_IMPACT;
+    }
+    
+    private void emitEffects() {
+        float centerX = player.getX() + player.getWidth() / 2f;
+        float bottomY = player.getY() + player.getHeight();
+        
+        // Dust kicked up when a stunt starts and when the bike lands
+        boolean performingStunt = player.isPerformingStunt();
+        if (performingStunt && !wasPerformingStunt) {
+            particles.emit(ParticleSystem.SPRITE_DUST, 24, centerX, bottomY, player.getWidth() / 4f,
+                    0, roadSpeed, 3, 20);
+        }
+        wasPerformingStunt = performingStunt;
+        
+        boolean landing = player.isLanding();
+        if (landing && !wasLanding) {
+            particles.emit(ParticleSystem.SPRITE_DUST, 40, centerX, bottomY, player.getWidth() / 3f,
+                    0, roadSpeed, 4, 24);
+        }
+        wasLanding = landing;
+        
+        // Speed lines streaming back during a wheelie, stars trailing a jump
+        int bikeState = player.getBikeState();
+        if (bikeState == Player.BIKE_WHEELIE) {
+            particles.emit(ParticleSystem.SPRITE_SPEED_LINE, 2, centerX, bottomY, player.getWidth() / 2f,
+                    0, roadSpeed * 3, 0.5f, 12);
+        } else if (bikeState == Player.BIKE_JUMP) {
+            particles.emit(ParticleSystem.SPRITE_STAR, 1, centerX, player.getY(), player.getWidth() / 2f,
+                    0, -1, 1.5f, 30);
+        }
+    }
+    
+    // Crash effects where the bike was when it hit, as a fraction of the step
+    private void emitCrash(float time) {
+        float centerX = player.getPrevX() + (player.getX() - player.getPrevX()) * time + player.getWidth() / 2f;
+        float centerY = player.getPrevY() + (player.getY() - player.getPrevY()) * time + player.getHeight() / 2f;
+        particles.emit(ParticleSystem.SPRITE_CRASH, 1, centerX, centerY, 0, 0, 0, 0, 60);
+        particles.emit(ParticleSystem.SPRITE_DEBRIS, 150, centerX, centerY, player.getWidth() / 4f, 0, 0, 8, 40);
+    }
+    
+    private void addStuntBonus() {
+        if (player.getLastStuntType() != null) {
+            int bonus = player.getStuntPoints(player.getLastStuntType());
+            score += bonus;
+            
+            // Show bonus text
+            stuntBonusText = "+" + bonus + " STUNT!";
+            stuntBonusTimer = 60;  // Show for 1 second
+        }
+    }
+    
+    // Getters
+    public Player getPlayer() {
+        return player;
+    }
+    
+    public ObstacleStore getObstacles() {
+        return obstacles;
+    }
+    
+    /**
+     * Set whether collision sweeps the player and obstacles along their
+     * movement over each step (the default) or only tests where they end up
+     * @param continuousCollision true for swept collision
+     */
+    public void setContinuousCollision(boolean continuousCollision) {
+        this.continuousCollision = continuousCollision;
+    }
+    
+    public boolean isContinuousCollision() {
+        return continuousCollision;
+    }
+    
+    /**
+     * Get when the player first touched an obstacle during the last step
+     * @return Fraction of the step, 0 to 1, or CollisionGrid.NO_IMPACT if nothing was hit
+     */
+    public float getContactTime() {
+        return contactTime;
+    }
+    
+    /**
+     * Get the type of the obstacle the player touched first during the last step
+     * @return One of the Obstacle.TYPE_ constants, or -1 if nothing was hit
+     */
+    public int getContactTypeId() {
+        return contactTypeId;
+    }
+    
+    public SpriteSizes getSpriteSizes() {
+        return spriteSizes;
+    }
+    
+    public DensityCurve getDensity() {
+        return density;
+    }
+
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public long getTick() {
+        return tick;
+    }
+    
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+    
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+    
+    public boolean isGameOver() {
+        return gameOver;
+    }
+    
+    public boolean isGameWon() {
+        return gameWon;
+    }
+    
+    public int getScore() {
+        return score;
+    }
+    
+    public int getDistance() {
+        return distance;
+    }
+    
+    public int getFinishLineY() {
+        return finishLineY;
+    }
+    
+    public int getRoadY() {
+        return roadY;
+    }
+    
+    public int getRoadSpeed() {
+        return roadSpeed;
+    }
+    
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+    
+    public String getStuntBonusText() {
+        return stuntBonusText;
+    }
+    
+    public int getStuntBonusTimer() {
+        return stuntBonusTimer;
+    }
+}
@@ -0,0 +1,89 @@
+package com.racingdrama.engine;
+
+/**
+ * Player input for one simulation step, independent of how it was
+ * produced (touch, joystick, a recording or a test).
+ */
+public class GameInput {
+    // Continuous joystick movement
+    private boolean joystickMoving;
+    private float horizontal;
+    private float vertical;
+    
+    // Discrete input ("left", "right", "up", "down" / "wheelie", "jump")
+    private String direction;
+    private String stunt;
+    
+    // One-shot requests
+    private boolean restart;
+    private boolean resetPosition;
+    
+    /**
+     * Set the joystick state
+     * @param moving true if the joystick is held past its dead zone
+     * @param horizontal Horizontal movement (-1 to 1)
+     * @param vertical Vertical movement (-1 to 1)
+     */
+    public void setJoystick(boolean moving, float horizontal, float vertical) {
+        this.joystickMoving = moving;
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+    }
+    
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+    
+    public void setStunt(String stunt) {
+        this.stunt = stunt;
+    }
+    
+    public void setRestart(boolean restart) {
+        this.restart = restart;
+    }
+    
+    public void setResetPosition(boolean resetPosition) {
+        this.resetPosition = resetPosition;
+    }
+    
+    /**
+     * Clear all input back to idle
+     */
+    public void clear() {
+        joystickMoving = false;
+        horizontal = 0;
+        vertical = 0;
+        direction = null;
+        stunt = null;
+        restart = false;
+        resetPosition = false;
+    }
+    
+    public boolean isJoystickMoving() {
+        return joystickMoving;
+    }
+    
+    public float getHorizontal() {
+        return horizontal;
+    }
+    
+    public float getVertical() {
+        return vertical;
+    }
+    
+    public String getDirection() {
+        return direction;
+    }
+    
+    public String getStunt() {
+        return stunt;
+    }
+    
+    public boolean isRestart() {
+        return restart;
+    }
+    
+    public boolean isResetPosition() {
+        return resetPosition;
+    }
+}
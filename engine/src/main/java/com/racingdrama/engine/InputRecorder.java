@@ -0,0 +1,181 @@
+package com.racingdrama.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records a game as its starting configuration plus one input record per
+ * simulation step, so {@link InputReplayer} can play it back exactly.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * header: int magic "RDIR", int version, long seed, int screenWidth,
+ *         int screenHeight, int keyframe count, then int distance, int count
+ *         for each density keyframe, int bikeWidth, int bikeHeight,
+ *         then int width, int height for each obstacle type, then a
+ *         collision mask for each bike state and each obstacle type,
+ *         then byte continuous collision
+ * mask:   byte present, then if present int width, int height and the
+ *         packed rows as longs
+ * tick:   byte flags, varint microseconds since the previous tick,
+ *         then float horizontal, float vertical if the joystick bit is set
+ * </pre>
+ * The flags byte packs the joystick, restart and reset bits with the
+ * direction and stunt codes, so an idle step costs about three bytes.
+ */
+public class InputRecorder implements Closeable {
+    // Format identification
+    static final int MAGIC = 0x52444952; // "RDIR"
+    static final int VERSION = 4; // 2: density curve instead of a fixed obstacle count, 3: collision masks, 4: collision mode
+    
+    // Flag bits
+    static final int FLAG_JOYSTICK = 1;
+    static final int FLAG_RESTART = 1 << 1;
+    static final int FLAG_RESET_POSITION = 1 << 2;
+    static final int DIRECTION_SHIFT = 3; // 3 bits
+    static final int STUNT_SHIFT = 6;     // 2 bits
+    
+    // Discrete inputs by code; code 0 means none
+    static final String[] DIRECTIONS = {null, "left", "right", "up", "down"};
+    static final String[] STUNTS = {null, "wheelie", "jump"};
+    
+    private final DataOutputStream out;
+    
+    // Recording start, and the previous record's offset from it
+    private final long startNanos;
+    private long lastMicros;
+    private long tickCount;
+    
+    /**
+     * Starts a recording of a game that has not been stepped yet
+     * @param out Stream to write to, closed with the recorder
+     * @param engine Freshly created engine whose configuration is recorded
+     * @param timestampNanos Start time, normally System.nanoTime()
+     */
+    public InputRecorder(OutputStream out, GameEngine engine, long timestampNanos) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.startNanos = timestampNanos;
+        writeHeader(engine);
+    }
+    
+    private void writeHeader(GameEngine engine) throws IOException {
+        SpriteSizes spriteSizes = engine.getSpriteSizes();
+        
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(engine.getSeed());
+        out.writeInt(engine.getScreenWidth());
+        out.writeInt(engine.getScreenHeight());
+        DensityCurve density = engine.getDensity();
+        out.writeInt(density.getKeyframeCount());
+        for (int keyframe = 0; keyframe < density.getKeyframeCount(); keyframe++) {
+            out.writeInt(density.getDistance(keyframe));
+            out.writeInt(density.getCount(keyframe));
+        }
+        out.writeInt(spriteSizes.getBikeWidth());
+        out.writeInt(spriteSizes.getBikeHeight());
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            out.writeInt(spriteSizes.getObstacleWidth(typeId));
+            out.writeInt(spriteSizes.getObstacleHeight(typeId));
+        }
+        
+        // Masks decide collisions, so replays need the same ones
+        for (int state = 0; state < Player.BIKE_STATE_COUNT; state++) {
+            writeMask(spriteSizes.getBikeMask(state));
+        }
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            writeMask(spriteSizes.getObstacleMask(typeId));
+        }
+        out.writeBoolean(engine.isContinuousCollision());
+    }
+    
+    private void writeMask(CollisionMask mask) throws IOException {
+        out.writeBoolean(mask != null);
+        if (mask == null) {
+            return;
+        }
+        
+        out.writeInt(mask.getWidth());
+        out.writeInt(mask.getHeight());
+        for (long word : mask.getBits()) {
+            out.writeLong(word);
+        }
+    }
+    
+    /**
+     * Records the input for the next step. Call once per step, before
+     * passing the same input to {@link GameEngine#step(GameInput)}.
+     * @param input Input for this step
+     * @param timestampNanos Time the step runs at, normally System.nanoTime()
+     */
+    public void record(GameInput input, long timestampNanos) throws IOException {
+        int flags = codeOf(DIRECTIONS, input.getDirection()) << DIRECTION_SHIFT
+                | codeOf(STUNTS, input.getStunt()) << STUNT_SHIFT;
+        if (input.isJoystickMoving()) {
+            flags |= FLAG_JOYSTICK;
+        }
+        if (input.isRestart()) {
+            flags |= FLAG_RESTART;
+        }
+        if (input.isResetPosition()) {
+            flags |= FLAG_RESET_POSITION;
+        }
+        
+        out.writeByte(flags);
+        
+        // Deltas between whole-microsecond offsets, so rounding never accumulates
+        long micros = Math.max(lastMicros, (timestampNanos - startNanos) / 1000);
+        writeVarLong(micros - lastMicros);
+        lastMicros = micros;
+        
+        // Raw float bits, so replayed movement matches to the last bit
+        if (input.isJoystickMoving()) {
+            out.writeFloat(input.getHorizontal());
+            out.writeFloat(input.getVertical());
+        }
+        
+        tickCount++;
+    }
+    
+    // Unknown values are ignored by the engine, so they record as none
+    private static int codeOf(String[] values, String value) {
+        for (int code = 1; code < values.length; code++) {
+            if (values[code].equals(value)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+    
+    // Unsigned LEB128: seven bits per byte, high bit set on all but the last
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    /**
+     * Get the number of steps recorded so far
+     * @return Step count
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+    
+    /**
+     * Push buffered records to the underlying stream
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
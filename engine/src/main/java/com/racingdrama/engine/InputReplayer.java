@@ -0,0 +1,228 @@
+package com.racingdrama.engine;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Plays back a recording made by {@link InputRecorder}: rebuilds the
+ * engine from the recorded configuration and feeds it the recorded input
+ * one step at a time, either as fast as possible or on the recorded clock.
+ */
+public class InputReplayer implements Closeable {
+    // Sanity limit on the density curve in a header, so a corrupt file can't allocate wildly
+    private static final int MAX_KEYFRAMES = 1024;
+    
+    // Same for collision masks, in pixels per side
+    private static final int MAX_MASK_SIZE = 4096;
+    
+    private final DataInputStream in;
+    
+    // Recorded configuration
+    private final long seed;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final DensityCurve density;
+    private final SpriteSizes spriteSizes = new SpriteSizes();
+    private final boolean continuousCollision;
+    
+    // Recorded time of the last step read, relative to the recording start
+    private long timestampNanos;
+    private long tickCount;
+    
+    /**
+     * Opens a recording and reads its header
+     * @param in Stream to read from, closed with the replayer
+     * @throws IOException If the stream is not a recording this version understands
+     */
+    public InputReplayer(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        
+        if (this.in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not an input recording");
+        }
+        int version = this.in.readInt();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        
+        seed = this.in.readLong();
+        screenWidth = this.in.readInt();
+        screenHeight = this.in.readInt();
+        int keyframeCount = this.in.readInt();
+        if (keyframeCount <= 0 || keyframeCount > MAX_KEYFRAMES) {
+            throw new IOException("Bad density keyframe count " + keyframeCount);
+        }
+        int[] distances = new int[keyframeCount];
+        int[] counts = new int[keyframeCount];
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            distances[keyframe] = this.in.readInt();
+            counts[keyframe] = this.in.readInt();
+        }
+        try {
+            density = new DensityCurve(distances, counts);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad density curve: " + e.getMessage());
+        }
+        
+        spriteSizes.setBikeSize(this.in.readInt(), this.in.readInt());
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            spriteSizes.setObstacleSize(typeId, this.in.readInt(), this.in.readInt());
+        }
+        
+        for (int state = 0; state < Player.BIKE_STATE_COUNT; state++) {
+            spriteSizes.setBikeMask(state, readMask());
+        }
+        for (int typeId = 0; typeId < Obstacle.TYPE_COUNT; typeId++) {
+            spriteSizes.setObstacleMask(typeId, readMask());
+        }
+        continuousCollision = this.in.readBoolean();
+    }
+    
+    private CollisionMask readMask() throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        
+        int width = in.readInt();
+        int height = in.readInt();
+        if (width <= 0 || height <= 0 || width > MAX_MASK_SIZE || height > MAX_MASK_SIZE) {
+            throw new IOException("Bad collision mask size " + width + "x" + height);
+        }
+        
+        long[] bits = new long[CollisionMask.packedLength(width, height)];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new CollisionMask(width, height, bits);
+    }
+    
+    /**
+     * Creates an engine in the same starting state as the recorded one
+     * @return New engine
+     */
+    public GameEngine createEngine() {
+        GameEngine engine = new GameEngine(screenWidth, screenHeight, spriteSizes, seed, density);
+        engine.setContinuousCollision(continuousCollision);
+        return engine;
+    }
+    
+    /**
+     * Reads the input for the next recorded step
+     * @param input Input to overwrite
+     * @return false once the recording has no more steps
+     */
+    public boolean next(GameInput input) throws IOException {
+        int flags = in.read();
+        if (flags < 0) {
+            return false;
+        }
+        
+        timestampNanos += readVarLong() * 1000;
+        
+        input.clear();
+        if ((flags & InputRecorder.FLAG_JOYSTICK) != 0) {
+            float horizontal = in.readFloat();
+            float vertical = in.readFloat();
+            input.setJoystick(true, horizontal, vertical);
+        }
+        input.setDirection(decode(InputRecorder.DIRECTIONS, flags >> InputRecorder.DIRECTION_SHIFT & 0x7));
+        input.setStunt(decode(InputRecorder.STUNTS, flags >> InputRecorder.STUNT_SHIFT & 0x3));
+        input.setRestart((flags & InputRecorder.FLAG_RESTART) != 0);
+        input.setResetPosition((flags & InputRecorder.FLAG_RESET_POSITION) != 0);
+        
+        tickCount++;
+        return true;
+    }
+    
+    private static String decode(String[] values, int code) throws IOException {
+        if (code >= values.length) {
+            throw new IOException("Bad input code " + code);
+        }
+        return values[code];
+    }
+    
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+    
+    /**
+     * Steps an engine through every remaining recorded step
+     * @param engine Engine from {@link #createEngine()}
+     * @param realTime true to wait for each step's recorded time, false to run flat out
+     * @return Wall-clock time taken in nanoseconds
+     */
+    public long replay(GameEngine engine, boolean realTime) throws IOException, InterruptedException {
+        GameInput input = new GameInput();
+        long start = System.nanoTime();
+        long firstTimestamp = -1;
+        
+        while (next(input)) {
+            if (realTime) {
+                // Measure from the first step so the gap before it isn't replayed
+                if (firstTimestamp < 0) {
+                    firstTimestamp = timestampNanos;
+                }
+                long waitNanos = start + (timestampNanos - firstTimestamp) - System.nanoTime();
+                if (waitNanos > 0) {
+                    Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+                }
+            }
+            engine.step(input);
+        }
+        
+        return System.nanoTime() - start;
+    }
+    
+    // Recorded configuration
+    public long getSeed() {
+        return seed;
+    }
+    
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+    
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+    
+    public DensityCurve getDensity() {
+        return density;
+    }
+    
+    public SpriteSizes getSpriteSizes() {
+        return spriteSizes;
+    }
+    
+    /**
+     * Get the recorded time of the last step read
+     * @return Nanoseconds since the recording started
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+    
+    /**
+     * Get the number of steps read so far
+     * @return Step count
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.racingdrama.engine;
+
+/**
+ * Stick position math for the virtual joystick: clamps the stick to the
+ * base circle and turns its offset into normalized movement. Touch
+ * handling and drawing stay in the app's VirtualJoystick.
+ */
+public class Joystick {
+    // Base position (center of the joystick base)
+    private final int baseX;
+    private final int baseY;
+    private final int baseRadius;
+    
+    // Stick position (center of the movable stick)
+    private float stickX;
+    private float stickY;
+    
+    // Stick offset
+    private float deltaX;
+    private float deltaY;
+    private float distance;
+    private float angle;
+    
+    // Movement threshold (minimum distance to register movement)
+    private final float movementThreshold;
+    
+    public Joystick(int baseX, int baseY, int baseRadius) {
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.baseRadius = baseRadius;
+        
+        // Initialize stick at the center of the base
+        this.stickX = baseX;
+        this.stickY = baseY;
+        
+        // Set movement threshold (10% of base radius)
+        this.movementThreshold = baseRadius * 0.1f;
+    }
+    
+    /**
+     * Moves the stick toward a touch point, keeping it inside the base
+     * @param touchX Touch x coordinate
+     * @param touchY Touch y coordinate
+     */
+    public void updateStickPosition(float touchX, float touchY) {
+        // Calculate distance from base center to touch point
+        distance = distance(baseX, baseY, touchX, touchY);
+        
+        // Calculate angle
+        angle = angle(baseX, baseY, touchX, touchY);
+        
+        // If touch is outside the base radius, limit the stick position to the base perimeter
+        if (distance > baseRadius) {
+            // Calculate stick position on the perimeter
+            stickX = baseX + (float) (Math.cos(angle) * baseRadius);
+            stickY = baseY + (float) (Math.sin(angle) * baseRadius);
+        } else {
+            // Set stick position to touch position
+            stickX = touchX;
+            stickY = touchY;
+        }
+        
+        // Calculate delta values (normalized from -1 to 1)
+        deltaX = (stickX - baseX) / baseRadius;
+        deltaY = (stickY - baseY) / baseRadius;
+    }
+    
+    public void resetStick() {
+        // Reset stick to center
+        stickX = baseX;
+        stickY = baseY;
+        
+        // Reset state
+        deltaX = 0;
+        deltaY = 0;
+        distance = 0;
+        angle = 0;
+    }
+    
+    /**
+     * Get the distance from the base center to a point
+     */
+    public float distanceFromBase(float x, float y) {
+        return distance(baseX, baseY, x, y);
+    }
+    
+    private float distance(float x1, float y1, float x2, float y2) {
+        return (float) Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
+    }
+    
+    private float angle(float x1, float y1, float x2, float y2) {
+        return (float) Math.atan2(y2 - y1, x2 - x1);
+    }
+    
+    // Returns true if the stick is moved beyond the threshold
+    public boolean isPastThreshold() {
+        return distance > movementThreshold;
+    }
+    
+    // Get the primary direction as a string, or null inside the threshold
+    public String getDirection() {
+        if (!isPastThreshold()) {
+            return null;
+        }
+        
+        // Determine the primary direction based on the angle
+        if (Math.abs(deltaX) > Math.abs(deltaY)) {
+            // Horizontal movement is stronger
+            return deltaX > 0 ? "right" : "left";
+        } else {
+            // Vertical movement is stronger
+            return deltaY > 0 ? "down" : "up";
+        }
+    }
+    
+    // Getters
+    public float getStickX() {
+        return stickX;
+    }
+    
+    public float getStickY() {
+        return stickY;
+    }
+    
+    public float getDeltaX() {
+        return deltaX;
+    }
+    
+    public float getDeltaY() {
+        return deltaY;
+    }
+    
+    public float getDistance() {
+        return distance;
+    }
+    
+    public float getAngle() {
+        return angle;
+    }
+    
+    public int getBaseX() {
+        return baseX;
+    }
+    
+    public int getBaseY() {
+        return baseY;
+    }
+    
+    public int getBaseRadius() {
+        return baseRadius;
+    }
+}
@@ -0,0 +1,44 @@
+package com.racingdrama.engine;
+
+/**
+ * Obstacle types. The obstacles themselves live in an {@link ObstacleStore}.
+ */
+public final class Obstacle {
+    // Obstacle type ids, used to look up sprites without touching the obstacle itself
+    public static final int TYPE_CAR = 0;
+    public static final int TYPE_ROCK = 1;
+    public static final int TYPE_OIL = 2;
+    public static final int TYPE_CONE = 3;
+    public static final int TYPE_COUNT = 4;
+    
+    // Type names, indexed by type id
+    private static final String[] TYPE_NAMES = {"car", "rock", "oil", "cone"};
+    
+    private Obstacle() {
+    }
+    
+    /**
+     * Maps an obstacle type name to its type id
+     * @param obstacleType Type name ("car", "rock", "oil" or "cone")
+     * @return Matching type id, TYPE_CAR for unknown names
+     */
+    public static int typeIdFor(String obstacleType) {
+        if ("rock".equals(obstacleType)) {
+            return TYPE_ROCK;
+        } else if ("oil".equals(obstacleType)) {
+            return TYPE_OIL;
+        } else if ("cone".equals(obstacleType)) {
+            return TYPE_CONE;
+        }
+        return TYPE_CAR;
+    }
+    
+    /**
+     * Maps a type id back to its name
+     * @param typeId One of the TYPE_ constants
+     * @return Type name
+     */
+    public static String typeName(int typeId) {
+        return TYPE_NAMES[typeId];
+    }
+}
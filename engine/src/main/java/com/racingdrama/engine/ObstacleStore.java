@@ -0,0 +1,247 @@
+package com.racingdrama.engine;
+
+/**
+ * Every obstacle on the road, stored as parallel primitive arrays rather
+ * than one object per obstacle, so the per-step update and collision
+ * loops walk a few contiguous arrays instead of chasing references.
+ *
+ * Obstacles are packed into indices 0 to count - 1; removing one moves
+ * the last obstacle into its slot. Sizes aren't stored per obstacle but
+ * looked up by type in a small table. The capacity is fixed, so nothing
+ * is allocated once the store exists.
+ *
+ * Every change is mirrored into a {@link CollisionGrid}, so overlap
+ * queries only test the obstacles near the query box.
+ */
+public class ObstacleStore {
+    // Per-obstacle state, indexed 0..count-1
+    private final int[] x;
+    private final int[] y;
+    private final int[] prevY;
+    private final int[] speed;
+    private final int[] typeId;
+    private final boolean[] hazard;
+    private int count;
+    
+    // Fastest obstacle added so far, which bounds how far any obstacle moved this step
+    private int maxSpeed;
+    
+    // Sprite size by type id
+    private final int[] typeWidths = new int[Obstacle.TYPE_COUNT];
+    private final int[] typeHeights = new int[Obstacle.TYPE_COUNT];
+    
+    // Broad phase over the obstacles, ids matching the indices here
+    private final CollisionGrid grid;
+    
+    /**
+     * Constructor
+     * @param capacity Most obstacles that can be on the road at once
+     * @param spriteSizes Obstacle sprite sizes, copied
+     * @param grid Empty grid with at least capacity ids, kept in step with the store
+     */
+    public ObstacleStore(int capacity, SpriteSizes spriteSizes, CollisionGrid grid) {
+        this.grid = grid;
+        x = new int[capacity];
+        y = new int[capacity];
+        prevY = new int[capacity];
+        speed = new int[capacity];
+        typeId = new int[capacity];
+        hazard = new boolean[capacity];
+        
+        for (int type = 0; type < Obstacle.TYPE_COUNT; type++) {
+            typeWidths[type] = spriteSizes.getObstacleWidth(type);
+            typeHeights[type] = spriteSizes.getObstacleHeight(type);
+        }
+    }
+    
+    /**
+     * Puts an obstacle on the road
+     * @param x Left edge
+     * @param y Top edge
+     * @param speed Pixels moved down per step
+     * @param typeId One of the Obstacle.TYPE_ constants
+     * @param isHazard true if hitting it crashes the bike
+     * @return Index of the new obstacle, or -1 if the store is full
+     */
+    public int add(int x, int y, int speed, int typeId, boolean isHazard) {
+        if (count == this.x.length) {
+            return -1;
+        }
+        
+        int index = count++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.prevY[index] = y;
+        this.speed[index] = speed;
+        this.typeId[index] = typeId;
+        this.hazard[index] = isHazard;
+        maxSpeed = Math.max(maxSpeed, speed);
+        grid.set(index, x, y, x + typeWidths[typeId], y + typeHeights[typeId]);
+        return index;
+    }
+    
+    /**
+     * Removes an obstacle by moving the last one into its slot
+     * @param index Obstacle to remove
+     */
+    public void remove(int index) {
+        int last = --count;
+        grid.remove(index);
+        if (index != last) {
+            grid.renumber(last, index);
+        }
+        
+        x[index] = x[last];
+        y[index] = y[last];
+        prevY[index] = prevY[last];
+        speed[index] = speed[last];
+        typeId[index] = typeId[last];
+        hazard[index] = hazard[last];
+    }
+    
+    /**
+     * Removes every obstacle
+     */
+    public void clear() {
+        count = 0;
+        grid.clear();
+    }
+    
+    /**
+     * Moves every obstacle one step and removes the ones that have left the screen
+     * @param screenHeight Screen height in pixels
+     */
+    public void update(int screenHeight) {
+        // Backwards, so the obstacle swapped into a removed slot has already moved
+        for (int i = count - 1; i >= 0; i--) {
+            // Remember where this step started so the renderer can interpolate
+            int top = y[i];
+            prevY[i] = top;
+            top += speed[i];
+            y[i] = top;
+            
+            if (top > screenHeight) {
+                remove(i);
+            } else {
+                grid.setTop(i, top);
+            }
+        }
+    }
+    
+    /**
+     * Finds the obstacles overlapping a box. Touching edges don't count.
+     * @param left Box left
+     * @param top Box top
+     * @param right Box right
+     * @param bottom Box bottom
+     * @param hits Receives the indices found, in no particular order
+     * @return Number of indices written, at most hits.length
+     */
+    public int findOverlaps(int left, int top, int right, int bottom, int[] hits) {
+        return grid.query(left, top, right, bottom, hits);
+    }
+    
+    /**
+     * Finds the obstacles a box ran into while moving over the last step,
+     * with the obstacles moving from their previous to their current
+     * positions at the same time. Catches obstacles passed clean through
+     * in one step, which a check of the final positions misses.
+     * @param left Box left at the end of the step
+     * @param top Box top at the end of the step
+     * @param right Box right at the end of the step
+     * @param bottom Box bottom at the end of the step
+     * @param moveX Horizontal distance the box moved during the step
+     * @param moveY Vertical distance the box moved during the step
+     * @param hits Receives the indices found, in no particular order
+     * @param times Receives the fraction of the step at which each hit began, 0 to 1
+     * @return Number of hits written, at most hits.length
+     */
+    public int findSweptOverlaps(int left, int top, int right, int bottom, int moveX, int moveY,
+                                 int[] hits, float[] times) {
+        // Everywhere the box went, reaching down as far as an obstacle could have moved past it
+        int startLeft = left - moveX;
+        int startTop = top - moveY;
+        int candidateCount = grid.query(Math.min(left, startLeft), Math.min(top, startTop),
+                Math.max(right, startLeft + right - left), Math.max(bottom, startTop + bottom - top) + maxSpeed, hits);
+        
+        int hitCount = 0;
+        for (int candidate = 0; candidate < candidateCount; candidate++) {
+            int i = hits[candidate];
+            int type = typeId[i];
+            int startY = prevY[i];
+            
+            // Sweep the box relative to the obstacle, which only moves down
+            float time = CollisionGrid.timeOfImpact(startLeft, startTop, startLeft + right - left, startTop + bottom - top,
+                    moveX, moveY - (y[i] - startY), x[i], startY, x[i] + typeWidths[type], startY + typeHeights[type]);
+            if (time != CollisionGrid.NO_IMPACT) {
+                hits[hitCount] = i;
+                times[hitCount] = time;
+                hitCount++;
+            }
+        }
+        return hitCount;
+    }
+    
+    /**
+     * Finds every pair of obstacles overlapping each other
+     * @param pairs Receives each pair as two indices, the lower first
+     * @return Number of pairs written, at most pairs.length / 2
+     */
+    public int findOverlappingPairs(int[] pairs) {
+        return grid.queryPairs(pairs);
+    }
+    
+    /**
+     * Copies the positions and types into render buffers of at least getCount() entries
+     * @param xOut Left edges
+     * @param yOut Top edges
+     * @param prevYOut Top edges at the start of the step
+     * @param typeIdOut Type ids
+     */
+    public void copyTo(int[] xOut, int[] yOut, int[] prevYOut, int[] typeIdOut) {
+        System.arraycopy(x, 0, xOut, 0, count);
+        System.arraycopy(y, 0, yOut, 0, count);
+        System.arraycopy(prevY, 0, prevYOut, 0, count);
+        System.arraycopy(typeId, 0, typeIdOut, 0, count);
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public int getCapacity() {
+        return x.length;
+    }
+    
+    public int getX(int index) {
+        return x[index];
+    }
+    
+    public int getY(int index) {
+        return y[index];
+    }
+    
+    public int getPrevY(int index) {
+        return prevY[index];
+    }
+    
+    public int getSpeed(int index) {
+        return speed[index];
+    }
+    
+    public int getTypeId(int index) {
+        return typeId[index];
+    }
+    
+    public boolean isHazard(int index) {
+        return hazard[index];
+    }
+    
+    public int getWidth(int index) {
+        return typeWidths[typeId[index]];
+    }
+    
+    public int getHeight(int index) {
+        return typeHeights[typeId[index]];
+    }
+}
@@ -0,0 +1,216 @@
+package com.racingdrama.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Fixed-capacity pool of short-lived effect particles (dust, speed lines,
+ * stars, crash debris). Particle state is kept in parallel primitive
+ * arrays indexed by slot, and dead slots are recycled through a free
+ * list, so emitting and updating never allocate.
+ *
+ * Slots below {@link #getHighWater()} may be live or dead; a slot is live
+ * while its life is above zero. Emitting when every slot is live drops
+ * the new particles.
+ */
+public class ParticleSystem {
+    // Particle sprites
+    public static final int SPRITE_DUST = 0;
+    public static final int SPRITE_SPEED_LINE = 1;
+    public static final int SPRITE_STAR = 2;
+    public static final int SPRITE_DEBRIS = 3;
+    public static final int SPRITE_CRASH = 4;
+    public static final int SPRITE_COUNT = 5;
+    
+    // Default number of particle slots
+    public static final int DEFAULT_CAPACITY = 4096;
+    
+    // Per-sprite motion: velocity kept per step, and acceleration down the screen per step
+    private static final float[] SPRITE_DRAG = {0.92f, 1.0f, 0.96f, 0.94f, 1.0f};
+    private static final float[] SPRITE_GRAVITY = {0.0f, 0.0f, -0.05f, 0.15f, 0.0f};
+    
+    private final int capacity;
+    
+    // Particle state, one entry per slot
+    private final float[] x;
+    private final float[] y;
+    private final float[] prevX;
+    private final float[] prevY;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final int[] life;
+    private final int[] maxLife;
+    private final byte[] sprite;
+    
+    // Stack of free slots below the high-water mark
+    private final int[] freeSlots;
+    private int freeCount;
+    
+    // Slots at and above this index have never been used since the last clear
+    private int highWater;
+    private int liveCount;
+    
+    // Cosmetic randomness, separate from the game's so effects never change the game
+    private final Random random;
+    
+    /**
+     * Constructor
+     * @param capacity Maximum number of live particles
+     * @param seed Seed for particle spread, so replays look the same
+     */
+    public ParticleSystem(int capacity, long seed) {
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.prevX = new float[capacity];
+        this.prevY = new float[capacity];
+        this.velocityX = new float[capacity];
+        this.velocityY = new float[capacity];
+        this.life = new int[capacity];
+        this.maxLife = new int[capacity];
+        this.sprite = new byte[capacity];
+        this.freeSlots = new int[capacity];
+        this.random = new Random(seed);
+    }
+    
+    /**
+     * Emits particles spreading out from a point
+     * @param spriteId One of the SPRITE_ constants
+     * @param count Number of particles
+     * @param originX Emission centre x
+     * @param originY Emission centre y
+     * @param spread Random offset from the centre in each axis, in pixels
+     * @param baseVelocityX Velocity every particle starts with, x
+     * @param baseVelocityY Velocity every particle starts with, y
+     * @param speed Maximum extra speed in a random direction, in pixels per step
+     * @param lifeSteps Steps each particle lives, before a random extra of up to half as many
+     * @return Number of particles emitted, less than count if the pool is full
+     */
+    public int emit(int spriteId, int count, float originX, float originY, float spread,
+                    float baseVelocityX, float baseVelocityY, float speed, int lifeSteps) {
+        for (int i = 0; i < count; i++) {
+            int slot = allocate();
+            if (slot < 0) {
+                return i;
+            }
+            
+            double angle = random.nextDouble() * Math.PI * 2;
+            float magnitude = random.nextFloat() * speed;
+            
+            x[slot] = originX + (random.nextFloat() * 2 - 1) * spread;
+            y[slot] = originY + (random.nextFloat() * 2 - 1) * spread;
+            prevX[slot] = x[slot];
+            prevY[slot] = y[slot];
+            velocityX[slot] = baseVelocityX + (float) Math.cos(angle) * magnitude;
+            velocityY[slot] = baseVelocityY + (float) Math.sin(angle) * magnitude;
+            life[slot] = lifeSteps + random.nextInt(lifeSteps / 2 + 1);
+            maxLife[slot] = life[slot];
+            sprite[slot] = (byte) spriteId;
+        }
+        return count;
+    }
+    
+    private int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (highWater < capacity) {
+            slot = highWater++;
+        } else {
+            return -1;
+        }
+        liveCount++;
+        return slot;
+    }
+    
+    /**
+     * Moves every live particle one step and frees the ones that expire
+     */
+    public void update() {
+        float[] x = this.x;
+        float[] y = this.y;
+        float[] velocityX = this.velocityX;
+        float[] velocityY = this.velocityY;
+        int[] life = this.life;
+        
+        for (int slot = 0; slot < highWater; slot++) {
+            if (life[slot] <= 0) {
+                continue;
+            }
+            
+            int spriteId = sprite[slot];
+            prevX[slot] = x[slot];
+            prevY[slot] = y[slot];
+            x[slot] += velocityX[slot];
+            y[slot] += velocityY[slot];
+            velocityX[slot] *= SPRITE_DRAG[spriteId];
+            velocityY[slot] = velocityY[slot] * SPRITE_DRAG[spriteId] + SPRITE_GRAVITY[spriteId];
+            
+            if (--life[slot] == 0) {
+                freeSlots[freeCount++] = slot;
+                liveCount--;
+            }
+        }
+        
+        // Once everything has expired, start packing from slot 0 again
+        if (liveCount == 0) {
+            highWater = 0;
+            freeCount = 0;
+        }
+    }
+    
+    /**
+     * Removes every particle
+     */
+    public void clear() {
+        Arrays.fill(life, 0, highWater, 0);
+        highWater = 0;
+        freeCount = 0;
+        liveCount = 0;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public int getLiveCount() {
+        return liveCount;
+    }
+    
+    /**
+     * Get the number of slots that may hold live particles; iterate up to this
+     * @return Slots in use, live or dead
+     */
+    public int getHighWater() {
+        return highWater;
+    }
+    
+    // Slot arrays, read-only for callers
+    public float[] getX() {
+        return x;
+    }
+    
+    public float[] getY() {
+        return y;
+    }
+    
+    public float[] getPrevX() {
+        return prevX;
+    }
+    
+    public float[] getPrevY() {
+        return prevY;
+    }
+    
+    public int[] getLife() {
+        return life;
+    }
+    
+    public int[] getMaxLife() {
+        return maxLife;
+    }
+    
+    public byte[] getSprite() {
+        return sprite;
+    }
+}
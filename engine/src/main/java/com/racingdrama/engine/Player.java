@@ -1,22 +1,21 @@
-package com.racingdrama;
-
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Matrix;
-import android.graphics.Paint;
-import android.graphics.Rect;
+package com.racingdrama.engine;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Bike state and movement rules. Holds no images; the sprite dimensions
+ * are passed in so collision and road clamping match what gets drawn.
+ */
 public class Player {
-    // Bike images for different states
-    private Bitmap normalImage;
-    private Bitmap wheelieImage;
-    private Bitmap jumpImage;
-    
-    // Current image and dimensions
-    private Bitmap currentImage;
+    // Bike image states
+    public static final int BIKE_NORMAL = 0;
+    public static final int BIKE_WHEELIE = 1;
+    public static final int BIKE_JUMP = 2;
+    public static final int BIKE_STATE_COUNT = 3;
+    
+    // Current bike state and dimensions
+    private int bikeState;
     private int width;
     private int height;
     
@@ -24,7 +23,16 @@ public class Player {
     private int x;
     private int y;
     private int speed;
-    private Rect collisionRect;
+    
+    // Position at the start of the current simulation step (for render interpolation)
+    private int prevX;
+    private int prevY;
+    
+    // Collision box
+    private int collisionLeft;
+    private int collisionTop;
+    private int collisionRight;
+    private int collisionBottom;
     
     // Screen and road dimensions
     private int screenWidth;
@@ -46,17 +54,6 @@ public class Player {
     // Stunt score bonuses
     private Map<String, Integer> stuntPoints;
     
-    // Particle effects
-    private boolean showSpeedLines;
-    private boolean showDust;
-    private boolean showStars;
-    private int effectTimer;
-    
-    // Effect images
-    private Bitmap speedLinesImg;
-    private Bitmap dustImg;
-    private Bitmap stuntStarsImg;
-    
     // Physics and animation properties
     private float leanAngle = 0; // Angle for bike leaning (in degrees)
     private float maxLeanAngle = 20; // Maximum lean angle
@@ -73,15 +70,14 @@ public class Player {
     private float lastHorizontalInput = 0;
     private float horizontalInputSmoothing = 0.2f; // Smoothing factor for turning
     
-    // Paint for drawing with transformations
-    private Paint bikePaint;
-    private Matrix transformMatrix;
-    
-    public Player(Bitmap normalImage, Bitmap wheelieImage, Bitmap jumpImage, int screenWidth, int screenHeight) {
-        this.normalImage = normalImage;
-        this.wheelieImage = wheelieImage;
-        this.jumpImage = jumpImage;
-        
+    /**
+     * Constructor
+     * @param width Width of the bike sprite
+     * @param height Height of the bike sprite
+     * @param screenWidth Screen width in pixels
+     * @param screenHeight Screen height in pixels
+     */
+    public Player(int width, int height, int screenWidth, int screenHeight) {
         // Set screen dimensions
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
@@ -92,18 +88,20 @@ public class Player {
         this.roadTopBoundary = 50; // Top edge of the road
         this.roadBottomBoundary = screenHeight - 50; // Bottom edge of the road
         
-        // Set current image and dimensions
-        this.currentImage = normalImage;
-        this.width = normalImage.getWidth();
-        this.height = normalImage.getHeight();
+        // Set current state and dimensions
+        this.bikeState = BIKE_NORMAL;
+        this.width = width;
+        this.height = height;
         
         // Set initial position - safely within the road
         this.x = 200; // Start at a safe position on the left side of the road
         this.y = screenHeight - 150;
         this.speed = 5;
+        this.prevX = x;
+        this.prevY = y;
         
-        // Initialize collision rectangle
-        this.collisionRect = new Rect(x, y, x + width, y + height);
+        // Initialize collision box
+        updateCollisionRect();
         
         // Initialize stunt properties
         this.performingStunt = false;
@@ -118,72 +116,6 @@ public class Player {
         this.stuntPoints = new HashMap<>();
         this.stuntPoints.put("wheelie", 100);
         this.stuntPoints.put("jump", 200);
-        
-        // Initialize particle effects
-        this.showSpeedLines = false;
-        this.showDust = false;
-        this.showStars = false;
-        this.effectTimer = 0;
-        
-        // Initialize physics and animation properties
-        this.bikePaint = new Paint();
-        this.transformMatrix = new Matrix();
-        
-        // Enable filtering for smoother rotation
-        this.bikePaint.setFilterBitmap(true);
-        this.bikePaint.setAntiAlias(true);
-    }
-    
-    public void setEffectImages(Bitmap speedLinesImg, Bitmap dustImg, Bitmap stuntStarsImg) {
-        this.speedLinesImg = speedLinesImg;
-        this.dustImg = dustImg;
-        this.stuntStarsImg = stuntStarsImg;
-    }
-    
-    public void draw(Canvas canvas) {
-        // Save the current canvas state
-        canvas.save();
-        
-        // Draw particle effects behind the bike
-        if (showSpeedLines && speedLinesImg != null) {
-            canvas.drawBitmap(speedLinesImg, x - 80, y + 20, null);
-        }
-        
-        if (showDust && dustImg != null) {
-            // Draw dust with more intensity when landing
-            float dustScale = isLanding ? 1.5f : 1.0f;
-            
-            // Create a matrix for dust transformation
-            Matrix dustMatrix = new Matrix();
-            dustMatrix.postScale(dustScale, dustScale, dustImg.getWidth()/2, 0);
-            dustMatrix.postTranslate(x - 10, y + height - 20 + suspensionOffset);
-            
-            canvas.drawBitmap(dustImg, dustMatrix, bikePaint);
-        }
-        
-        // Set up the transformation matrix for the bike
-        transformMatrix.reset();
-        
-        // Calculate the center point of the bike for rotation
-        float pivotX = width / 2.0f;
-        float pivotY = height / 2.0f;
-        
-        // Apply rotation for leaning effect
-        transformMatrix.postRotate(leanAngle, pivotX, pivotY);
-        
-        // Apply translation for position and suspension effect
-        transformMatrix.postTranslate(x, y + suspensionOffset);
-        
-        // Draw the bike image with transformations
-        canvas.drawBitmap(currentImage, transformMatrix, bikePaint);
-        
-        // Draw stunt stars above the bike if performing a stunt
-        if (showStars && stuntStarsImg != null) {
-            canvas.drawBitmap(stuntStarsImg, x - 25, y - 60 + suspensionOffset, null);
-        }
-        
-        // Restore the canvas state
-        canvas.restore();
     }
     
     public boolean startStunt(String stuntType) {
@@ -193,19 +125,13 @@ public class Player {
             lastStuntType = stuntType;
             stuntTimer = stuntDuration;
             
-            // Set the appropriate image
+            // Set the appropriate state
             if ("wheelie".equals(stuntType)) {
-                currentImage = wheelieImage;
-                showSpeedLines = true;
+                bikeState = BIKE_WHEELIE;
             } else if ("jump".equals(stuntType)) {
-                currentImage = jumpImage;
-                showStars = true;
+                bikeState = BIKE_JUMP;
             }
             
-            // Show dust effect
-            showDust = true;
-            effectTimer = 20;  // Show effects for 20 frames
-            
             return true;
         }
         return false;
@@ -214,11 +140,15 @@ public class Player {
     public void endStunt() {
         performingStunt = false;
         stuntType = null;
-        currentImage = normalImage;
+        bikeState = BIKE_NORMAL;
         stuntCooldown = stuntCooldownDuration;
     }
     
     public void update() {
+        // Remember where this step started so the renderer can interpolate
+        prevX = x;
+        prevY = y;
+        
         // Update stunt timer
         if (performingStunt) {
             stuntTimer--;
@@ -232,15 +162,6 @@ public class Player {
             stuntCooldown--;
         }
         
-        // Update effect timer
-        if (effectTimer > 0) {
-            effectTimer--;
-        } else {
-            showSpeedLines = false;
-            showDust = false;
-            showStars = false;
-        }
-        
         // Update bike lean angle - gradually move toward target angle
         if (Math.abs(leanAngle - targetLeanAngle) > 0.1f) {
             // Smoothly interpolate between current and target angle
@@ -274,7 +195,7 @@ public class Player {
         }
         
         // Update collision rectangle - adjust for suspension
-        collisionRect.set(x, (int)(y + suspensionOffset), x + width, (int)(y + height + suspensionOffset));
+        updateCollisionRect();
     }
     
     /**
@@ -352,7 +273,19 @@ public class Player {
      * Helper method to update collision rectangle
      */
     private void updateCollisionRect() {
-        collisionRect.set(x, (int)(y + suspensionOffset), x + width, (int)(y + height + suspensionOffset));
+        collisionLeft = x;
+        collisionTop = (int)(y + suspensionOffset);
+        collisionRight = x + width;
+        collisionBottom = (int)(y + height + suspensionOffset);
+    }
+    
+    /**
+     * Checks the collision box against another box without modifying either
+     * @return true if the boxes overlap
+     */
+    public boolean intersects(int left, int top, int right, int bottom) {
+        return collisionLeft < right && left < collisionRight
+                && collisionTop < bottom && top < collisionBottom;
     }
     
     // Getters and setters
@@ -364,6 +297,14 @@ public class Player {
         return y;
     }
     
+    public int getPrevX() {
+        return prevX;
+    }
+    
+    public int getPrevY() {
+        return prevY;
+    }
+    
     public int getWidth() {
         return width;
     }
@@ -380,8 +321,24 @@ public class Player {
         this.speed = speed;
     }
     
-    public Rect getCollisionRect() {
-        return collisionRect;
+    public int getCollisionLeft() {
+        return collisionLeft;
+    }
+    
+    public int getCollisionTop() {
+        return collisionTop;
+    }
+    
+    public int getCollisionRight() {
+        return collisionRight;
+    }
+    
+    public int getCollisionBottom() {
+        return collisionBottom;
+    }
+    
+    public int getBikeState() {
+        return bikeState;
     }
     
     public boolean isPerformingStunt() {
@@ -410,6 +367,22 @@ public class Player {
         return points != null ? points : 0;
     }
     
+    public float getLeanAngle() {
+        return leanAngle;
+    }
+    
+    public float getMaxLeanAngle() {
+        return maxLeanAngle;
+    }
+    
+    public float getSuspensionOffset() {
+        return suspensionOffset;
+    }
+    
+    public boolean isLanding() {
+        return isLanding;
+    }
+    
     // Road boundary getters
     public int getRoadLeftBoundary() {
         return roadLeftBoundary;
@@ -466,33 +439,14 @@ public class Player {
         this.isLanding = false;
         this.lastHorizontalInput = 0;
         
+        // Snap instead of interpolating across the jump
+        this.prevX = x;
+        this.prevY = y;
+        
         // Reset image to normal
-        this.currentImage = normalImage;
+        this.bikeState = BIKE_NORMAL;
         
         // Update collision rectangle
-        collisionRect.set(x, y, x + width, y + height);
-    }
-    
-    /**
-     * Updates the bike images with new style
-     * @param normalImage New normal bike image
-     * @param wheelieImage New wheelie bike image
-     * @param jumpImage New jump bike image
-     */
-    public void updateBikeImages(Bitmap normalImage, Bitmap wheelieImage, Bitmap jumpImage) {
-        this.normalImage = normalImage;
-        this.wheelieImage = wheelieImage;
-        this.jumpImage = jumpImage;
-        
-        // Update current image based on current state
-        if (performingStunt) {
-            if ("wheelie".equals(stuntType)) {
-                currentImage = wheelieImage;
-            } else if ("jump".equals(stuntType)) {
-                currentImage = jumpImage;
-            }
-        } else {
-            currentImage = normalImage;
-        }
+        updateCollisionRect();
     }
-}
\ No newline at end of file
+}
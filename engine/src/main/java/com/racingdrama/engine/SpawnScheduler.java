@@ -0,0 +1,102 @@
+package com.racingdrama.engine;
+
+import java.util.Random;
+
+/**
+ * Brings traffic onto the road in waves. Every wave tops the road back up
+ * to the count the {@link DensityCurve} asks for at the current distance,
+ * spawning the missing obstacles together in a band above the screen.
+ * Obstacles go into the engine's {@link ObstacleStore} and every random
+ * decision uses the engine's generator, so spawning stays deterministic.
+ */
+public class SpawnScheduler {
+    // Steps between waves by default (one second at 60 steps per second)
+    public static final int DEFAULT_WAVE_INTERVAL = 60;
+    
+    // Height of the band above the screen a wave spawns in
+    private static final int WAVE_BAND_HEIGHT = 400;
+    
+    // The first wave is spread further up so the road doesn't start with a wall
+    private static final int INITIAL_BAND_TOP = -1000;
+    private static final int INITIAL_BAND_HEIGHT = 800;
+    
+    private final ObstacleStore obstacles;
+    private final DensityCurve curve;
+    private final Random random;
+    private final SpriteSizes spriteSizes;
+    private final int waveInterval;
+    
+    // Road the obstacles spawn across
+    private final int roadLeftBoundary;
+    private final int roadRightBoundary;
+    
+    private int stepsUntilWave;
+    
+    /**
+     * Constructor
+     * @param obstacles Store the obstacles are spawned into
+     * @param curve Obstacle count over distance
+     * @param random Shared game random generator
+     * @param spriteSizes Obstacle sizes by type
+     * @param roadLeftBoundary Left edge of the road
+     * @param roadRightBoundary Right edge of the road
+     * @param waveInterval Steps between waves
+     */
+    public SpawnScheduler(ObstacleStore obstacles, DensityCurve curve, Random random, SpriteSizes spriteSizes,
+                          int roadLeftBoundary, int roadRightBoundary, int waveInterval) {
+        this.obstacles = obstacles;
+        this.curve = curve;
+        this.random = random;
+        this.spriteSizes = spriteSizes;
+        this.roadLeftBoundary = roadLeftBoundary;
+        this.roadRightBoundary = roadRightBoundary;
+        this.waveInterval = waveInterval;
+        this.stepsUntilWave = waveInterval;
+    }
+    
+    /**
+     * Fills an empty road for the start of a race
+     */
+    public void spawnInitial() {
+        stepsUntilWave = waveInterval;
+        spawn(curve.countAt(0), INITIAL_BAND_TOP, INITIAL_BAND_HEIGHT);
+    }
+    
+    /**
+     * Advances one step and spawns a wave when one is due
+     * @param distance Distance travelled so far
+     */
+    public void update(int distance) {
+        if (--stepsUntilWave > 0) {
+            return;
+        }
+        stepsUntilWave = waveInterval;
+        
+        spawn(curve.countAt(distance) - obstacles.getCount(), -WAVE_BAND_HEIGHT, WAVE_BAND_HEIGHT);
+    }
+    
+    private void spawn(int count, int bandTop, int bandHeight) {
+        count = Math.min(count, obstacles.getCapacity() - obstacles.getCount());
+        for (int i = 0; i < count; i++) {
+            int typeId = random.nextInt(Obstacle.TYPE_COUNT);
+            boolean isHazard = typeId != Obstacle.TYPE_OIL;
+            int width = spriteSizes.getObstacleWidth(typeId);
+            int height = spriteSizes.getObstacleHeight(typeId);
+            
+            // Ensure obstacles stay completely within road boundaries
+            int x = random.nextInt(roadRightBoundary - width - roadLeftBoundary) + roadLeftBoundary;
+            
+            // Bottom edge inside the band, so the whole obstacle starts off screen
+            int y = bandTop + random.nextInt(bandHeight) - height;
+            
+            // Speed between 2-3
+            int speed = random.nextInt(2) + 2;
+            
+            obstacles.add(x, y, speed, typeId, isHazard);
+        }
+    }
+    
+    public DensityCurve getCurve() {
+        return curve;
+    }
+}
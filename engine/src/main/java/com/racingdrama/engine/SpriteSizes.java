@@ -0,0 +1,82 @@
+package com.racingdrama.engine;
+
+/**
+ * Pixel dimensions of the sprites the simulation needs for movement
+ * limits and collision, so the engine never has to see a bitmap.
+ * Optional collision masks narrow collision down to solid pixels; without
+ * them the bounding boxes decide.
+ */
+public class SpriteSizes {
+    private int bikeWidth = 100;
+    private int bikeHeight = 60;
+    private final int[] obstacleWidths = new int[Obstacle.TYPE_COUNT];
+    private final int[] obstacleHeights = new int[Obstacle.TYPE_COUNT];
+    
+    // Solid pixels by Player.BIKE_ state and by obstacle type, null for box-only collision
+    private final CollisionMask[] bikeMasks = new CollisionMask[Player.BIKE_STATE_COUNT];
+    private final CollisionMask[] obstacleMasks = new CollisionMask[Obstacle.TYPE_COUNT];
+    
+    public SpriteSizes() {
+        // Same sizes as the fallback images
+        setObstacleSize(Obstacle.TYPE_CAR, 100, 60);
+        setObstacleSize(Obstacle.TYPE_ROCK, 50, 50);
+        setObstacleSize(Obstacle.TYPE_OIL, 60, 30);
+        setObstacleSize(Obstacle.TYPE_CONE, 40, 60);
+    }
+    
+    public void setBikeSize(int width, int height) {
+        this.bikeWidth = width;
+        this.bikeHeight = height;
+    }
+    
+    /**
+     * Set the sprite size for an obstacle type
+     * @param typeId One of the Obstacle.TYPE_ constants
+     */
+    public void setObstacleSize(int typeId, int width, int height) {
+        obstacleWidths[typeId] = width;
+        obstacleHeights[typeId] = height;
+    }
+    
+    /**
+     * Set the collision mask for a bike state
+     * @param bikeState One of the Player.BIKE_ constants
+     * @param mask Mask anchored at the collision box's top-left, or null
+     */
+    public void setBikeMask(int bikeState, CollisionMask mask) {
+        bikeMasks[bikeState] = mask;
+    }
+    
+    /**
+     * Set the collision mask for an obstacle type
+     * @param typeId One of the Obstacle.TYPE_ constants
+     * @param mask Mask anchored at the obstacle's top-left, or null
+     */
+    public void setObstacleMask(int typeId, CollisionMask mask) {
+        obstacleMasks[typeId] = mask;
+    }
+    
+    public int getBikeWidth() {
+        return bikeWidth;
+    }
+    
+    public int getBikeHeight() {
+        return bikeHeight;
+    }
+    
+    public int getObstacleWidth(int typeId) {
+        return obstacleWidths[typeId];
+    }
+    
+    public int getObstacleHeight(int typeId) {
+        return obstacleHeights[typeId];
+    }
+    
+    public CollisionMask getBikeMask(int bikeState) {
+        return bikeMasks[bikeState];
+    }
+    
+    public CollisionMask getObstacleMask(int typeId) {
+        return obstacleMasks[typeId];
+    }
+}
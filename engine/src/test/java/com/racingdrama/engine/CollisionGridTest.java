@@ -0,0 +1,100 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+public class CollisionGridTest {
+    private static final int CAPACITY = 300;
+    
+    @Test
+    public void query_matchesBruteForceAsBoxesMoveAndLeave() {
+        Random random = new Random(5L);
+        CollisionGrid grid = new CollisionGrid(0, 0, 800, 800, 64, CAPACITY);
+        int[][] boxes = new int[CAPACITY][];
+        int[] hits = new int[CAPACITY];
+        
+        for (int round = 0; round < 200; round++) {
+            // Some boxes land outside the grid, which must still be found
+            int id = random.nextInt(CAPACITY);
+            if (random.nextInt(4) == 0) {
+                grid.remove(id);
+                boxes[id] = null;
+            } else {
+                int left = random.nextInt(1000) - 100;
+                int top = random.nextInt(1000) - 100;
+                boxes[id] = new int[]{left, top, left + 10 + random.nextInt(60), top + 10 + random.nextInt(60)};
+                grid.set(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+            }
+            
+            int left = random.nextInt(900) - 50;
+            int top = random.nextInt(900) - 50;
+            int right = left + random.nextInt(200);
+            int bottom = top + random.nextInt(200);
+            int hitCount = grid.query(left, top, right, bottom, hits);
+            
+            int expected = 0;
+            for (int[] box : boxes) {
+                if (box != null && CollisionGrid.overlaps(left, top, right, bottom, box[0], box[1], box[2], box[3])) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, hitCount);
+            for (int hit = 0; hit < hitCount; hit++) {
+                int[] box = boxes[hits[hit]];
+                assertTrue(CollisionGrid.overlaps(left, top, right, bottom, box[0], box[1], box[2], box[3]));
+            }
+        }
+    }
+    
+    @Test
+    public void timeOfImpact_findsFirstOverlapAlongTheMove() {
+        // 10px box moving 100px right through a 4px wall at x 50
+        assertEquals(0.4f, CollisionGrid.timeOfImpact(0, 0, 10, 10, 100, 0, 50, 0, 54, 10), 0.0001f);
+        
+        // Same move, but the wall is beside the path
+        assertEquals(CollisionGrid.NO_IMPACT, CollisionGrid.timeOfImpact(0, 0, 10, 10, 100, 0, 50, 10, 54, 20), 0f);
+        
+        // Stops just short of touching, and touching alone doesn't count
+        assertEquals(CollisionGrid.NO_IMPACT, CollisionGrid.timeOfImpact(0, 0, 10, 10, 40, 0, 50, 0, 54, 10), 0f);
+        
+        // Already overlapping, and overlapping on the diagonal only late in the move
+        assertEquals(0f, CollisionGrid.timeOfImpact(0, 0, 10, 10, 5, 5, 5, 5, 20, 20), 0f);
+        assertEquals(0.5f, CollisionGrid.timeOfImpact(0, 0, 10, 10, 40, 40, 30, 30, 60, 60), 0.0001f);
+    }
+    
+    @Test
+    public void queryPairs_findsEachOverlappingPairOnce() {
+        Random random = new Random(9L);
+        CollisionGrid grid = new CollisionGrid(0, 0, 500, 500, 50, CAPACITY);
+        int[][] boxes = new int[CAPACITY][];
+        for (int id = 0; id < CAPACITY; id++) {
+            int left = random.nextInt(500);
+            int top = random.nextInt(500);
+            boxes[id] = new int[]{left, top, left + 5 + random.nextInt(45), top + 5 + random.nextInt(45)};
+            grid.set(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+        }
+        
+        int[] pairs = new int[CAPACITY * CAPACITY];
+        int pairCount = grid.queryPairs(pairs);
+        
+        boolean[] found = new boolean[CAPACITY * CAPACITY];
+        for (int pair = 0; pair < pairCount; pair++) {
+            int first = pairs[pair * 2];
+            int second = pairs[pair * 2 + 1];
+            assertTrue(first < second);
+            assertFalse(found[first * CAPACITY + second]);
+            found[first * CAPACITY + second] = true;
+        }
+        
+        for (int first = 0; first < CAPACITY; first++) {
+            for (int second = first + 1; second < CAPACITY; second++) {
+                int[] a = boxes[first];
+                int[] b = boxes[second];
+                assertEquals(CollisionGrid.overlaps(a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3]),
+                        found[first * CAPACITY + second]);
+            }
+        }
+    }
+}
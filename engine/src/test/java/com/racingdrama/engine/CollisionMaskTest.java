@@ -0,0 +1,55 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+public class CollisionMaskTest {
+    private static final int SOLID = 0xFF000000;
+    
+    @Test
+    public void overlaps_ignoresTransparentCorners() {
+        // Solid below the diagonal, clear above it
+        int size = 40;
+        int[] pixels = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x <= y; x++) {
+                pixels[y * size + x] = SOLID;
+            }
+        }
+        CollisionMask mask = new CollisionMask(pixels, size, size);
+        
+        // Up and to the right, only the clear corner of this mask overlaps the other's box
+        assertFalse(mask.overlaps(mask, 30, -30));
+        assertTrue(mask.overlaps(mask, 10, 10));
+    }
+    
+    @Test
+    public void overlaps_matchesPixelByPixelAcrossWordBoundaries() {
+        Random random = new Random(11L);
+        CollisionMask first = randomMask(random, 130, 20);
+        CollisionMask second = randomMask(random, 70, 25);
+        
+        for (int offsetY = -26; offsetY <= 21; offsetY += 3) {
+            for (int offsetX = -72; offsetX <= 132; offsetX++) {
+                boolean expected = false;
+                for (int y = 0; y < first.getHeight() && !expected; y++) {
+                    for (int x = 0; x < first.getWidth() && !expected; x++) {
+                        expected = first.isSolid(x, y) && second.isSolid(x - offsetX, y - offsetY);
+                    }
+                }
+                assertEquals("offset " + offsetX + "," + offsetY, expected, first.overlaps(second, offsetX, offsetY));
+            }
+        }
+    }
+    
+    // Sparse, so some offsets miss
+    private static CollisionMask randomMask(Random random, int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt(60) == 0 ? SOLID : 0x40FFFFFF;
+        }
+        return new CollisionMask(pixels, width, height);
+    }
+}
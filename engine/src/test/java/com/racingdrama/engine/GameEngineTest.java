@@ -0,0 +1,82 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Drives the game rules headlessly on the JVM.
+ */
+public class GameEngineTest {
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+    
+    @Test
+    public void sameSeedAndInput_produceSameGame() {
+        GameEngine first = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 42L);
+        GameEngine second = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 42L);
+        GameInput input = new GameInput();
+        
+        for (int tick = 0; tick < 600; tick++) {
+            input.setJoystick(true, (float) Math.sin(tick / 30.0), 0);
+            input.setStunt(tick % 120 == 0 ? "jump" : null);
+            first.step(input);
+            second.step(input);
+        }
+        
+        assertEquals(first.getScore(), second.getScore());
+        assertEquals(first.getDistance(), second.getDistance());
+        assertEquals(first.isGameOver(), second.isGameOver());
+        assertEquals(first.getPlayer().getX(), second.getPlayer().getX());
+        for (int i = 0; i < first.getObstacles().getCount(); i++) {
+            assertEquals(first.getObstacles().getX(i), second.getObstacles().getX(i));
+            assertEquals(first.getObstacles().getY(i), second.getObstacles().getY(i));
+        }
+    }
+    
+    @Test
+    public void step_advancesScoreAndDistance() {
+        GameEngine engine = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 7L);
+        GameInput input = new GameInput();
+        
+        engine.step(input);
+        engine.step(input);
+        
+        assertEquals(2, engine.getScore());
+        assertEquals(2 * engine.getRoadSpeed(), engine.getDistance());
+        assertEquals(2, engine.getTick());
+    }
+    
+    @Test
+    public void restart_clearsScoreAndEndState() {
+        GameEngine engine = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 7L);
+        GameInput input = new GameInput();
+        for (int tick = 0; tick < 50; tick++) {
+            engine.step(input);
+        }
+        
+        input.setRestart(true);
+        engine.step(input);
+        
+        assertEquals(1, engine.getScore());
+        assertFalse(engine.isGameOver());
+        assertFalse(engine.isGameWon());
+    }
+    
+    @Test
+    public void traffic_followsDensityCurveFromFixedPool() {
+        DensityCurve density = new DensityCurve(new int[]{0, 2000}, new int[]{10, 300});
+        GameEngine engine = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 3L, density);
+        GameInput input = new GameInput();
+        
+        assertEquals(density.getMaxCount(), engine.getObstacles().getCapacity());
+        int mostOnRoad = 0;
+        for (int tick = 0; tick < 600 && !engine.isGameOver(); tick++) {
+            engine.step(input);
+            mostOnRoad = Math.max(mostOnRoad, engine.getObstacles().getCount());
+            assertTrue(engine.getObstacles().getCount() <= engine.getObstacles().getCapacity());
+        }
+        
+        // Waves filled the road as the curve rose, within the store sized for the curve
+        assertTrue(mostOnRoad > 100);
+    }
+}
@@ -0,0 +1,89 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Records a scripted game and checks that replaying it reproduces it.
+ */
+public class InputRecorderTest {
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+    private static final long STEP_NANOS = 1000000000L / 60;
+    
+    @Test
+    public void replay_reproducesRecordedGame() throws Exception {
+        // A round rock, so the recorded masks decide some collisions
+        int[] pixels = new int[50 * 50];
+        for (int i = 0; i < pixels.length; i++) {
+            int dx = i % 50 - 25;
+            int dy = i / 50 - 25;
+            pixels[i] = dx * dx + dy * dy < 625 ? 0xFF000000 : 0;
+        }
+        SpriteSizes spriteSizes = new SpriteSizes();
+        spriteSizes.setObstacleMask(Obstacle.TYPE_ROCK, new CollisionMask(pixels, 50, 50));
+        
+        GameEngine live = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, spriteSizes, 99L, 20);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(bytes, live, 0);
+        GameInput input = new GameInput();
+        
+        for (int tick = 0; tick < 900; tick++) {
+            input.clear();
+            if (tick % 200 < 100) {
+                input.setJoystick(true, (float) Math.sin(tick / 17.0), (float) Math.cos(tick / 23.0));
+            } else {
+                input.setDirection(tick % 2 == 0 ? "left" : "up");
+            }
+            input.setStunt(tick % 150 == 0 ? "wheelie" : null);
+            input.setRestart(tick == 500);
+            input.setResetPosition(tick == 700);
+            
+            recorder.record(input, tick * STEP_NANOS);
+            live.step(input);
+        }
+        recorder.close();
+        
+        InputReplayer replayer = new InputReplayer(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(99L, replayer.getSeed());
+        GameEngine replayed = replayer.createEngine();
+        replayer.replay(replayed, false);
+        
+        assertEquals(900, replayer.getTickCount());
+        assertEquals(899 * STEP_NANOS / 1000 * 1000, replayer.getTimestampNanos());
+        assertFalse(replayed.getSpriteSizes().getObstacleMask(Obstacle.TYPE_ROCK).isSolid(0, 0));
+        assertTrue(replayed.getSpriteSizes().getObstacleMask(Obstacle.TYPE_ROCK).isSolid(25, 25));
+        assertNull(replayed.getSpriteSizes().getBikeMask(Player.BIKE_NORMAL));
+        assertEquals(live.getTick(), replayed.getTick());
+        assertEquals(live.getScore(), replayed.getScore());
+        assertEquals(live.getDistance(), replayed.getDistance());
+        assertEquals(live.isGameOver(), replayed.isGameOver());
+        assertEquals(live.getPlayer().getX(), replayed.getPlayer().getX());
+        assertEquals(live.getPlayer().getY(), replayed.getPlayer().getY());
+        for (int i = 0; i < live.getObstacles().getCount(); i++) {
+            assertEquals(live.getObstacles().getX(i), replayed.getObstacles().getX(i));
+            assertEquals(live.getObstacles().getY(i), replayed.getObstacles().getY(i));
+        }
+    }
+    
+    @Test
+    public void idleStep_isCompact() throws Exception {
+        GameEngine engine = new GameEngine(SCREEN_WIDTH, SCREEN_HEIGHT, new SpriteSizes(), 1L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(bytes, engine, 0);
+        recorder.flush();
+        int headerSize = bytes.size();
+        
+        GameInput input = new GameInput();
+        for (int tick = 1; tick <= 60; tick++) {
+            recorder.record(input, tick * STEP_NANOS);
+        }
+        recorder.close();
+        
+        // One flag byte plus a three-byte varint for ~16667us
+        assertEquals(headerSize + 60 * 4, bytes.size());
+    }
+}
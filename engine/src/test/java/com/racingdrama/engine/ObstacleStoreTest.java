@@ -0,0 +1,30 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ObstacleStoreTest {
+
+    @Test
+    public void findSweptOverlaps_catchesObstaclesPassedThroughInOneStep() {
+        SpriteSizes spriteSizes = new SpriteSizes();
+        spriteSizes.setObstacleSize(Obstacle.TYPE_OIL, 60, 4);
+        ObstacleStore store = new ObstacleStore(4, spriteSizes, new CollisionGrid(0, -500, 500, 500, 60, 4));
+        store.add(100, 100, 3, Obstacle.TYPE_OIL, false);
+        store.add(100, 20, 3, Obstacle.TYPE_OIL, false);
+        store.add(300, 100, 3, Obstacle.TYPE_OIL, false);
+        store.update(500);
+        
+        // A 20px box that moved 150px up through both slicks on the left in one step
+        int[] hits = new int[4];
+        float[] times = new float[4];
+        assertEquals(0, store.findOverlaps(110, 0, 130, 20, hits));
+        assertEquals(2, store.findSweptOverlaps(110, 0, 130, 20, 0, -150, hits, times));
+        
+        // The lower slick first: the box top starts at 150 and meets its bottom (104, moving down) 46px into a 153px relative move
+        int lower = store.getY(hits[0]) > store.getY(hits[1]) ? 0 : 1;
+        assertEquals(103, store.getY(hits[lower]));
+        assertEquals(46f / 153f, times[lower], 0.0001f);
+        assertTrue(times[1 - lower] > times[lower]);
+    }
+}
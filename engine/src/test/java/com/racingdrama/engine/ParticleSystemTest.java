@@ -0,0 +1,49 @@
+package com.racingdrama.engine;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParticleSystemTest {
+
+    @Test
+    public void emit_dropsParticlesPastCapacity() {
+        ParticleSystem particles = new ParticleSystem(10, 1L);
+        
+        assertEquals(6, particles.emit(ParticleSystem.SPRITE_DUST, 6, 0, 0, 5, 0, 0, 1, 10));
+        assertEquals(4, particles.emit(ParticleSystem.SPRITE_DUST, 6, 0, 0, 5, 0, 0, 1, 10));
+        
+        assertEquals(10, particles.getLiveCount());
+        assertEquals(10, particles.getHighWater());
+    }
+    
+    @Test
+    public void update_freesExpiredSlotsForReuse() {
+        ParticleSystem particles = new ParticleSystem(8, 1L);
+        particles.emit(ParticleSystem.SPRITE_STAR, 4, 0, 0, 0, 0, 0, 0, 2);
+        particles.emit(ParticleSystem.SPRITE_DEBRIS, 4, 0, 0, 0, 0, 0, 0, 100);
+        
+        // Stars live 2-3 steps, debris 100-150
+        for (int step = 0; step < 3; step++) {
+            particles.update();
+        }
+        assertEquals(4, particles.getLiveCount());
+        
+        // New particles take the freed slots instead of growing past them
+        assertEquals(4, particles.emit(ParticleSystem.SPRITE_DUST, 4, 0, 0, 0, 0, 0, 0, 10));
+        assertEquals(8, particles.getHighWater());
+        assertEquals(0, particles.emit(ParticleSystem.SPRITE_DUST, 1, 0, 0, 0, 0, 0, 0, 10));
+    }
+    
+    @Test
+    public void update_movesParticlesAndKeepsPreviousPosition() {
+        ParticleSystem particles = new ParticleSystem(1, 1L);
+        particles.emit(ParticleSystem.SPRITE_SPEED_LINE, 1, 100, 200, 0, 3, 5, 0, 10);
+        
+        particles.update();
+        
+        assertEquals(100f, particles.getPrevX()[0], 0.001f);
+        assertEquals(200f, particles.getPrevY()[0], 0.001f);
+        assertEquals(103f, particles.getX()[0], 0.001f);
+        assertEquals(205f, particles.getY()[0], 0.001f);
+    }
+}